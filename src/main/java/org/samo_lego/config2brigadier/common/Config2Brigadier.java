@@ -11,5 +11,6 @@ public class Config2Brigadier {
             .setStrictness(Strictness.LENIENT)
             .setPrettyPrinting()
             .disableHtmlEscaping()
+            .registerTypeAdapterFactory(new LazySection.AdapterFactory())
             .create();
 }
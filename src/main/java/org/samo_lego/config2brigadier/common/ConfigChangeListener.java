@@ -0,0 +1,24 @@
+package org.samo_lego.config2brigadier.common;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Listener for config value changes,
+ * see {@link IBrigadierConfigurator#addChangeListener(String, ConfigChangeListener)}.
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+    /**
+     * Called on the server thread after a config value was changed
+     * by a command or a reload.
+     *
+     * @param path dotted path of the changed field, e.g. {@code nested.someValue}.
+     * @param oldValue previous value of the field.
+     * @param newValue current value of the field.
+     */
+    void onChange(
+        String path,
+        @Nullable Object oldValue,
+        @Nullable Object newValue
+    );
+}
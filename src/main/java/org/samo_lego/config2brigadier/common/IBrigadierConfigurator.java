@@ -9,6 +9,7 @@ import static org.samo_lego.config2brigadier.common.util.ConfigFieldList.populat
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.Strictness;
 import com.google.gson.annotations.SerializedName;
 import com.mojang.brigadier.CommandDispatcher;
@@ -20,29 +21,27 @@ import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.LongArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.mojang.brigadier.tree.CommandNode;
 import com.mojang.brigadier.tree.LiteralCommandNode;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import me.lucko.fabric.api.permissions.v0.Permissions;
 import net.minecraft.ChatFormatting;
@@ -53,13 +52,31 @@ import net.minecraft.network.chat.HoverEvent;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.server.permissions.Permission.HasCommandLevel;
 import net.minecraft.server.permissions.PermissionLevel;
-import org.apache.commons.lang3.math.NumberUtils;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 import org.samo_lego.config2brigadier.common.annotation.BrigadierDescription;
 import org.samo_lego.config2brigadier.common.annotation.BrigadierExcluded;
+import org.samo_lego.config2brigadier.common.command.AsyncSuggestions;
 import org.samo_lego.config2brigadier.common.command.CommandFeedback;
+import org.samo_lego.config2brigadier.common.command.FieldPath;
+import org.samo_lego.config2brigadier.common.command.InfoPage;
+import org.samo_lego.config2brigadier.common.command.PathTrie;
+import org.samo_lego.config2brigadier.common.command.PermissionCache;
+import org.samo_lego.config2brigadier.common.command.SharedSubtrees;
+import org.samo_lego.config2brigadier.common.command.SuggestionIndex;
+import org.samo_lego.config2brigadier.common.io.AtomicFileWriter;
+import org.samo_lego.config2brigadier.common.io.ConfigLoader;
+import org.samo_lego.config2brigadier.common.io.ConfigStorage;
+import org.samo_lego.config2brigadier.common.io.ConfigWatcher;
+import org.samo_lego.config2brigadier.common.io.FsyncPolicy;
+import org.samo_lego.config2brigadier.common.io.JsonBuffer;
+import org.samo_lego.config2brigadier.common.io.ReloadScheduler;
+import org.samo_lego.config2brigadier.common.io.SaveScheduler;
+import org.samo_lego.config2brigadier.common.util.ConfigDiff;
 import org.samo_lego.config2brigadier.common.util.ConfigFieldList;
+import org.samo_lego.config2brigadier.common.util.ConfigListeners;
+import org.samo_lego.config2brigadier.common.util.DescriptionIndex;
+import org.samo_lego.config2brigadier.common.util.FieldAccessor;
 
 /**
  * An interface your config should implement.
@@ -73,6 +90,7 @@ public interface IBrigadierConfigurator {
     String CONFIG_STR = "config";
     String EDIT_STR = "edit";
     String RELOAD_STR = "reload";
+    String BATCH_STR = "batch";
 
     Gson MSG_GSON = new GsonBuilder()
         .setStrictness(Strictness.LENIENT)
@@ -84,9 +102,49 @@ public interface IBrigadierConfigurator {
      * in-memory-only changes.
      * <p>
      * You can call {@link #writeToFile(File)} to save the config to a file.
+     * <p>
+     * Not called for configs that are saved off the server thread instead,
+     * see {@link #useScheduledSaving()}.
      */
     void save();
 
+    /**
+     * Whether to save the config to its file off the server thread after edits,
+     * instead of calling {@link #save()}. Only used for configs loaded with
+     * {@link #loadConfigFile(File, Class, Supplier)}, as the file is known.
+     * Configs annotated with {@link org.samo_lego.config2brigadier.common.annotation.EditJournal}
+     * or with {@link org.samo_lego.config2brigadier.common.annotation.ShardedStorage} fields
+     * are always saved this way.
+     * @see SaveScheduler
+     * @return false by default.
+     */
+    default boolean useScheduledSaving() {
+        return false;
+    }
+
+    /**
+     * Gets the delay between the first edit and saving the config to file.
+     * All edits made within the delay are saved with a single write.
+     * Only used for configs that are saved off the server thread, see {@link #useScheduledSaving()}.
+     * @return delay in milliseconds, 1000 by default.
+     */
+    default long getSaveDelay() {
+        return 1000;
+    }
+
+    /**
+     * Whether to reload the config when its file is changed on disk,
+     * e.g. by hand. Only used for configs loaded with
+     * {@link #loadConfigFile(File, Class, Supplier)} whose command is generated with
+     * {@link #generateReloadableConfigCommand(String, CommandDispatcher, Supplier)}.
+     * Requires Fabric lifecycle events.
+     * @see ConfigWatcher
+     * @return false by default.
+     */
+    default boolean watchConfigFile() {
+        return false;
+    }
+
     /**
      * Loads changes from given config object into this object.
      * Useful as if we overwrite the config, we'd have to re-register command.
@@ -99,6 +157,8 @@ public interface IBrigadierConfigurator {
 
     /**
      * Loads changes from given config object into this object recursively.
+     * Only fields whose values differ are written, see {@link ConfigDiff},
+     * and change listeners of this config are notified about them.
      * Useful as if we overwrite the config, we'd have to re-register command.
      * Usage:
      *     config.reloadValues(config, newConfig);
@@ -108,34 +168,72 @@ public interface IBrigadierConfigurator {
      */
     @ApiStatus.Internal
     default void reloadValues(Object config, Object newConfig) {
-        try {
-            for (Field field : config.getClass().getFields()) {
-                Class<?> type = field.getType();
-
-                if (
-                    Modifier.isFinal(field.getModifiers()) ||
-                    Modifier.isStatic(field.getModifiers())
-                ) {
-                    continue;
-                }
-
-                field.setAccessible(true);
-                Object value = field.get(newConfig);
+        this.applyDiff(config, ConfigDiff.compute(config, newConfig));
+    }
 
-                if (
-                    type.isPrimitive() ||
-                    type.equals(String.class) ||
-                    Collection.class.isAssignableFrom(type) ||
-                    Map.class.isAssignableFrom(type)
-                ) {
-                    field.set(config, value);
-                } else {
-                    // Recursion
-                    this.reloadValues(field.get(config), value);
-                }
+    /**
+     * Applies the difference computed with {@link ConfigDiff#compute(Object, Object)}
+     * to the config, as {@link #reloadValues(Object, Object)} does.
+     *
+     * @param config config object the difference was computed for.
+     * @param diff difference to the new config object.
+     */
+    @ApiStatus.Internal
+    default void applyDiff(Object config, ConfigDiff diff) {
+        for (ConfigDiff.Change change : diff.changes()) {
+            // Collections may be changed in place
+            if (
+                change.oldValue() instanceof Map<?, ?> ||
+                change.oldValue() instanceof Collection<?>
+            ) {
+                SuggestionIndex.invalidate(change.oldValue());
             }
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+        }
+        // Paths are only known when starting from the config itself
+        ConfigListeners listeners = config == this
+            ? ConfigListeners.get(this)
+            : null;
+        if (listeners == null) {
+            diff.apply();
+            return;
+        }
+        for (ConfigDiff.Change change : diff.apply(listeners::isListening)) {
+            listeners.notify(
+                change.path(),
+                change.oldValue(),
+                change.newValue()
+            );
+        }
+    }
+
+    /**
+     * Adds a listener that is called when the value at the path is changed
+     * with a command or by reloading the config. Listeners are also notified about
+     * changes of fields nested under the path.
+     * <p>
+     * Fields of map and list entries use the path without the key or index,
+     * e.g. {@code nestedMap.message}.
+     *
+     * @param path dotted field path, e.g. {@code nested.someValue}.
+     * @param listener listener to add.
+     */
+    default void addChangeListener(String path, ConfigChangeListener listener) {
+        ConfigListeners.of(this).add(path, listener);
+    }
+
+    /**
+     * Removes the listener added with {@link #addChangeListener(String, ConfigChangeListener)}.
+     *
+     * @param path dotted field path the listener was added for.
+     * @param listener listener to remove.
+     */
+    default void removeChangeListener(
+        String path,
+        ConfigChangeListener listener
+    ) {
+        ConfigListeners listeners = ConfigListeners.get(this);
+        if (listeners != null) {
+            listeners.remove(path, listener);
         }
     }
 
@@ -221,31 +319,11 @@ public interface IBrigadierConfigurator {
         Class<C> configClass,
         Supplier<C> fallbackConstructor
     ) {
-        C config = null;
-        if (file.exists()) {
-            try (
-                BufferedReader fileReader = new BufferedReader(
-                    new InputStreamReader(
-                        new FileInputStream(file),
-                        StandardCharsets.UTF_8
-                    )
-                )
-            ) {
-                config = GSON.fromJson(fileReader, configClass);
-            } catch (IOException e) {
-                getLogger(MOD_ID).severe(
-                    "[Config2Brigadier] Problem occurred when trying to load config: " +
-                        e.getMessage()
-                );
-            }
-        }
-        if (config == null) {
-            config = fallbackConstructor.get();
-        }
-
-        config.writeToFile(file);
-
-        return config;
+        return ConfigLoader.load(
+            file.toPath(),
+            configClass,
+            fallbackConstructor
+        );
     }
 
     /**
@@ -261,9 +339,21 @@ public interface IBrigadierConfigurator {
 
         var permissionNodes = new LinkedList<String>();
         permissionNodes.add(permissionPrefix);
-        recursiveEditCommand(editNode, configFields, permissionNodes, context ->
-            this
-        );
+        if (this.useCompactEditCommand()) {
+            this.buildCompactEditCommand(
+                editNode,
+                configFields,
+                permissionNodes
+            );
+        } else {
+            recursiveEditCommand(
+                editNode,
+                configFields,
+                permissionNodes,
+                context -> this
+            );
+        }
+        this.buildBatchEditCommand(editNode, configFields, permissionNodes);
     }
 
     /**
@@ -300,12 +390,18 @@ public interface IBrigadierConfigurator {
 
     /**
      * All-in-one solution for generating config command.
+     * <p>
+     * Configs loaded with {@link #loadConfigFile(File, Class, Supplier)} are reloaded
+     * by parsing their file directly, so {@code newConfigLoader} is only called for
+     * other configs and any extra logic in it (e.g. migrations) doesn't run for them.
+     * Override {@link #reload(IBrigadierConfigurator)} to adjust the reloaded values instead.
      * @param modId mod id
      * @param dispatcher command dispatcher
      * Generates command like:
      * /modid config edit &lt;config fields&gt;
      * And the reloading (if provided):
      * /modid config reload
+     * @param newConfigLoader loader for the new config object, or null to omit reloading.
      */
     default void generateReloadableConfigCommand(
         String modId,
@@ -323,9 +419,21 @@ public interface IBrigadierConfigurator {
         permissionNodes.add(modId);
         permissionNodes.add(CONFIG_STR);
         permissionNodes.add(EDIT_STR);
-        recursiveEditCommand(editNode, configFields, permissionNodes, context ->
-            this
-        );
+        if (this.useCompactEditCommand()) {
+            this.buildCompactEditCommand(
+                editNode,
+                configFields,
+                permissionNodes
+            );
+        } else {
+            recursiveEditCommand(
+                editNode,
+                configFields,
+                permissionNodes,
+                context -> this
+            );
+        }
+        this.buildBatchEditCommand(editNode, configFields, permissionNodes);
 
         permissionNodes.removeLast();
 
@@ -343,22 +451,21 @@ public interface IBrigadierConfigurator {
                     )
                 )
                 .executes(context -> {
-                    this.reload(newConfigLoader.get());
-                    this.save();
-                    context
-                        .getSource()
-                        .sendSuccess(
-                            () ->
-                                Component.translatable(
-                                    "commands.reload.success"
-                                ).withStyle(ChatFormatting.GREEN),
-                            false
-                        );
+                    // Feedback is sent once the config is reloaded
+                    ReloadScheduler.request(
+                        this,
+                        newConfigLoader,
+                        context.getSource()
+                    );
                     return 1;
                 })
                 .build();
             configNode.addChild(reloadNode);
             permissionNodes.removeLast();
+
+            if (this.watchConfigFile()) {
+                ConfigWatcher.watch(this);
+            }
         }
 
         configNode.addChild(editNode);
@@ -366,6 +473,167 @@ public interface IBrigadierConfigurator {
         root.addChild(configNode);
     }
 
+    /**
+     * Generates the {@code batch <json>} node, which sets multiple fields with one save,
+     * see {@link CommandFeedback#editConfigBatch}. Skipped if the config has a field named {@code batch}.
+     * @param editNode edit node to attach the batch node to.
+     * @param configFields fields of this config.
+     * @param permissionNodes permission nodes of the edit node.
+     */
+    private void buildBatchEditCommand(
+        LiteralCommandNode<CommandSourceStack> editNode,
+        ConfigFieldList configFields,
+        List<String> permissionNodes
+    ) {
+        if (editNode.getChild(BATCH_STR) != null) {
+            return;
+        }
+
+        String editPermission = String.join(".", permissionNodes);
+        String permission = permissionNodes.isEmpty()
+            ? ""
+            : editPermission + "." + BATCH_STR;
+        var batchNode = literal(BATCH_STR)
+            .requires(src -> PermissionCache.check(src, permission))
+            .then(
+                argument("values", StringArgumentType.greedyString()).executes(
+                    context ->
+                        CommandFeedback.editConfigBatch(
+                            context,
+                            this,
+                            configFields,
+                            editPermission
+                        )
+                )
+            )
+            .build();
+        editNode.addChild(batchNode);
+    }
+
+    /**
+     * Generates the compact {@code <path> [value]} node, used instead of a node per option
+     * if {@link #useCompactEditCommand()} is enabled, e.g. {@code edit nested.message Hi}.
+     * Paths are completed from a {@link PathTrie}, so the size of the command tree doesn't
+     * depend on the number of options.
+     * @param editNode edit node to attach the path node to.
+     * @param configFields fields of this config.
+     * @param permissionNodes permission nodes of the edit node.
+     */
+    private void buildCompactEditCommand(
+        LiteralCommandNode<CommandSourceStack> editNode,
+        ConfigFieldList configFields,
+        List<String> permissionNodes
+    ) {
+        PathTrie paths = PathTrie.of(configFields);
+        String editPermission = String.join(".", permissionNodes);
+        String commandPrefix = String.join(" ", permissionNodes);
+
+        var pathNode = argument("path", StringArgumentType.word())
+            .requires(src -> PermissionCache.check(src, editPermission))
+            .suggests((context, builder) -> {
+                CommandSourceStack source = context.getSource();
+                paths.suggest(builder, this.getSuggestionLimit(), path ->
+                    PermissionCache.check(
+                        source,
+                        editPermission.isEmpty()
+                            ? ""
+                            : editPermission + "." + path
+                    )
+                );
+                return builder.buildFuture();
+            })
+            .executes(context ->
+                this.generatePathInfo(
+                    context,
+                    paths,
+                    editPermission,
+                    commandPrefix
+                )
+            )
+            .then(
+                literal("page").then(
+                    argument("page", IntegerArgumentType.integer(1))
+                        .executes(context ->
+                            this.generatePathInfo(
+                                context,
+                                paths,
+                                editPermission,
+                                commandPrefix
+                            )
+                        )
+                        .then(
+                            argument(
+                                "pageSize",
+                                IntegerArgumentType.integer(
+                                    1,
+                                    InfoPage.MAX_PAGE_SIZE
+                                )
+                            ).executes(context ->
+                                this.generatePathInfo(
+                                    context,
+                                    paths,
+                                    editPermission,
+                                    commandPrefix
+                                )
+                            )
+                        )
+                )
+            )
+            .then(
+                argument("value", StringArgumentType.greedyString()).executes(
+                    context ->
+                        CommandFeedback.editConfigPath(
+                            context,
+                            this,
+                            configFields,
+                            paths,
+                            editPermission
+                        )
+                )
+            )
+            .build();
+        editNode.addChild(pathNode);
+    }
+
+    /**
+     * Shows the info of the option at the {@code path} argument of the compact edit command.
+     * @param context command context.
+     * @param paths option paths of this config.
+     * @param editPermission permission prefix of the edit command.
+     * @param commandPrefix command of the edit node.
+     * @return 1 for success, 0 for error.
+     */
+    private int generatePathInfo(
+        CommandContext<CommandSourceStack> context,
+        PathTrie paths,
+        String editPermission,
+        String commandPrefix
+    ) {
+        CommandSourceStack source = context.getSource();
+        String path = StringArgumentType.getString(context, "path");
+        PathTrie.Resolved option = paths.resolve(this, path);
+
+        boolean permitted = PermissionCache.checkUncached(
+            source,
+            editPermission.isEmpty() ? "" : editPermission + "." + path
+        );
+        if (option == null || !permitted) {
+            source.sendFailure(
+                Component.translatable(
+                    "config2brigadier.command.edit.unknown",
+                    path
+                ).withStyle(ChatFormatting.RED)
+            );
+            return 0;
+        }
+        return this.generateFieldInfo(
+            context,
+            option.parent(),
+            option.field(),
+            commandPrefix + " " + path
+        );
+    }
+
     /**
      * Recursively generates the command for config editing and attaches it to child.
      * @param root child to attach available fields to, e. g. `/modid editConfig`
@@ -379,6 +647,51 @@ public interface IBrigadierConfigurator {
         ConfigFieldList configFields,
         List<String> permissionNodes,
         Function<CommandContext<CommandSourceStack>, Object> parentProvider
+    ) {
+        this.recursiveEditCommand(
+            root,
+            configFields,
+            permissionNodes,
+            FieldPath.Container.root(parentProvider)
+        );
+    }
+
+    /**
+     * Recursively generates the command for config editing and attaches it to child.
+     * Field paths (accessor chain, permission, display name) are compiled here once,
+     * so command execution doesn't need to resolve them again.
+     * @param root child to attach available fields to, e. g. `/modid editConfig`
+     * @param configFields a list of fields for this config.
+     * @param permissionNodes list of permission nodes. If empty, no permission check will be done.
+     * @param container container of the fields.
+     */
+    @ApiStatus.Internal
+    default void recursiveEditCommand(
+        CommandNode<CommandSourceStack> root,
+        ConfigFieldList configFields,
+        List<String> permissionNodes,
+        FieldPath.Container container
+    ) {
+        this.recursiveEditCommand(
+            root,
+            configFields,
+            permissionNodes,
+            container,
+            new SharedSubtrees(this.findRepeatedClasses(configFields))
+        );
+    }
+
+    /**
+     * Recursively generates the command for config editing and attaches it to child.
+     * Nodes of classes used at several places are built once, see {@link SharedSubtrees}.
+     * @param shared shared subtrees of this command generation.
+     */
+    private void recursiveEditCommand(
+        CommandNode<CommandSourceStack> root,
+        ConfigFieldList configFields,
+        List<String> permissionNodes,
+        FieldPath.Container container,
+        SharedSubtrees shared
     ) {
         // CommandData class to store data for command generation.
         record CommandData(
@@ -386,7 +699,7 @@ public interface IBrigadierConfigurator {
             ArgumentType<?> argumentType,
             BiFunction<
                 CommandContext<CommandSourceStack>,
-                Field,
+                FieldPath,
                 Integer
             > editorFunction
         ) {}
@@ -395,109 +708,58 @@ public interface IBrigadierConfigurator {
             new CommandData(
                 configFields.booleans(),
                 BoolArgumentType.bool(),
-                (context, field) ->
-                    CommandFeedback.editConfigBoolean(
-                        context,
-                        parentProvider.apply(context),
-                        this,
-                        field
-                    )
+                (context, path) ->
+                    CommandFeedback.editConfigBoolean(context, path, this)
             ),
             new CommandData(
                 configFields.integers(),
                 IntegerArgumentType.integer(),
-                (context, field) ->
-                    CommandFeedback.editConfigInt(
-                        context,
-                        parentProvider.apply(context),
-                        this,
-                        field
-                    )
+                (context, path) ->
+                    CommandFeedback.editConfigInt(context, path, this)
             ),
             new CommandData(
                 configFields.floats(),
                 FloatArgumentType.floatArg(),
-                (context, field) ->
-                    CommandFeedback.editConfigFloat(
-                        context,
-                        parentProvider.apply(context),
-                        this,
-                        field
-                    )
+                (context, path) ->
+                    CommandFeedback.editConfigFloat(context, path, this)
             ),
             new CommandData(
                 configFields.doubles(),
                 DoubleArgumentType.doubleArg(),
-                (context, field) ->
-                    CommandFeedback.editConfigDouble(
-                        context,
-                        parentProvider.apply(context),
-                        this,
-                        field
-                    )
+                (context, path) ->
+                    CommandFeedback.editConfigDouble(context, path, this)
             ),
             new CommandData(
                 configFields.objects(),
                 StringArgumentType.greedyString(),
-                (context, field) ->
-                    CommandFeedback.editConfigObject(
-                        context,
-                        parentProvider.apply(context),
-                        this,
-                        field
-                    )
+                (context, path) ->
+                    CommandFeedback.editConfigObject(context, path, this)
             ),
         };
 
-        var ownersPermission = new HasCommandLevel(PermissionLevel.OWNERS);
         String commandPrefix = String.join(" ", permissionNodes);
 
         // Build the edit nodes for sub-*values*.
         for (CommandData data : commandData) {
             for (Field field : data.fields) {
                 var argType = data.argumentType;
-
-                var commandNodeName = field.getName();
-
-                String permission;
-                if (!permissionNodes.isEmpty()) {
-                    permissionNodes.add(commandNodeName);
-                    permission = String.join(".", permissionNodes);
-                    permissionNodes.removeLast();
-                } else {
-                    permission = "";
-                }
+                FieldPath path = this.compileFieldPath(
+                    container,
+                    field,
+                    permissionNodes,
+                    commandPrefix
+                );
 
                 LiteralCommandNode<CommandSourceStack> node = literal(
-                    commandNodeName
+                    field.getName()
                 )
-                    .requires(
-                        src ->
-                            (permission.isEmpty() &&
-                                src
-                                    .permissions()
-                                    .hasPermission(ownersPermission)) ||
-                            Permissions.check(
-                                src,
-                                permission,
-                                src
-                                    .permissions()
-                                    .hasPermission(ownersPermission)
-                            )
-                    )
+                    .requires(this.requirement(path))
                     .then(
                         argument("value", argType).executes(context ->
-                            data.editorFunction.apply(context, field)
-                        )
-                    )
-                    .executes(context ->
-                        generateFieldInfo(
-                            context,
-                            parentProvider.apply(context),
-                            field,
-                            commandPrefix + " " + commandNodeName
+                            data.editorFunction.apply(context, path)
                         )
                     )
+                    .executes(context -> generateFieldInfo(context, path))
                     .build();
                 root.addChild(node);
             }
@@ -505,103 +767,58 @@ public interface IBrigadierConfigurator {
 
         // Maps
         for (Field field : configFields.maps()) {
-            var commandNodeName = field.getName();
-            String permission;
-            if (!permissionNodes.isEmpty()) {
-                permissionNodes.add(commandNodeName);
-                permission = String.join(".", permissionNodes);
-                permissionNodes.removeLast();
-            } else {
-                permission = "";
-            }
+            FieldPath path = this.compileFieldPath(
+                container,
+                field,
+                permissionNodes,
+                commandPrefix
+            );
 
-            ParameterizedType mapType =
-                (ParameterizedType) field.getGenericType();
+            ParameterizedType mapType = (ParameterizedType) path
+                .accessor()
+                .genericType();
             Type keyType = mapType.getActualTypeArguments()[0];
             Type valType = mapType.getActualTypeArguments()[1];
 
             ArgumentType<?> keyArg = getArgumentTypeFor(keyType, false);
             ArgumentType<?> valArg = getArgumentTypeFor(valType, true);
 
-            var node = literal(commandNodeName)
-                .requires(
-                    src ->
-                        (permission.isEmpty() &&
-                            src
-                                .permissions()
-                                .hasPermission(ownersPermission)) ||
-                        Permissions.check(
-                            src,
-                            permission,
-                            src.permissions().hasPermission(ownersPermission)
-                        )
-                )
-                .executes(context ->
-                    generateFieldInfo(
-                        context,
-                        parentProvider.apply(context),
-                        field,
-                        commandPrefix + " " + commandNodeName
-                    )
-                )
+            var node = literal(field.getName())
+                .requires(this.requirement(path))
+                .executes(context -> generateFieldInfo(context, path))
                 .build();
 
             var setNode = literal("set")
                 .then(
                     argument("key", keyArg)
-                        .suggests((context, builder) -> {
-                            try {
-                                Map<?, ?> map = (Map<?, ?>) field.get(
-                                    parentProvider.apply(context)
-                                );
-                                if (map != null) map
-                                    .keySet()
-                                    .forEach(k ->
-                                        builder.suggest(String.valueOf(k))
-                                    );
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                            }
-                            return builder.buildFuture();
-                        })
+                        .suggests((context, builder) ->
+                            this.suggestMapKeys(context, builder, path)
+                        )
                         .then(
                             argument("value", valArg).executes(context ->
                                 CommandFeedback.editConfigMapSet(
                                     context,
-                                    parentProvider.apply(context),
-                                    this,
-                                    field
+                                    path,
+                                    this
                                 )
                             )
                         )
                 )
                 .build();
             node.addChild(setNode);
+            node.addChild(this.buildPageNode(path));
 
             var removeNode = literal("remove")
                 .then(
                     argument("key", keyArg)
-                        .suggests((context, builder) -> {
-                            try {
-                                Map<?, ?> map = (Map<?, ?>) field.get(
-                                    parentProvider.apply(context)
-                                );
-                                if (map != null) map
-                                    .keySet()
-                                    .forEach(k ->
-                                        builder.suggest(String.valueOf(k))
-                                    );
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                            }
-                            return builder.buildFuture();
-                        })
+                        .suggests((context, builder) ->
+                            this.suggestMapKeys(context, builder, path)
+                        )
                         .executes(context ->
                             CommandFeedback.editConfigMapRemove(
                                 context,
-                                parentProvider.apply(context),
-                                this,
-                                field
+                                path,
+                                this
                             )
                         )
                 )
@@ -611,22 +828,11 @@ public interface IBrigadierConfigurator {
             // Nested editing for Map entries
             if (valType instanceof Class<?> valClass && !isSimple(valClass)) {
                 var entryNode = literal("entry")
+                    .requires(this.junctionRequirement(path, valClass, shared))
                     .then(
-                        argument("key", keyArg).suggests((context, builder) -> {
-                            try {
-                                Map<?, ?> map = (Map<?, ?>) field.get(
-                                    parentProvider.apply(context)
-                                );
-                                if (map != null) map
-                                    .keySet()
-                                    .forEach(k ->
-                                        builder.suggest(String.valueOf(k))
-                                    );
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                            }
-                            return builder.buildFuture();
-                        })
+                        argument("key", keyArg).suggests((context, builder) ->
+                            this.suggestMapKeys(context, builder, path)
+                        )
                     )
                     .build();
 
@@ -638,28 +844,15 @@ public interface IBrigadierConfigurator {
                     this
                 );
                 if (!permissionNodes.isEmpty()) permissionNodes.add(
-                    commandNodeName
+                    field.getName()
                 );
-                recursiveEditCommand(
+                this.buildObjectCommand(
                     keyArgNode,
+                    valClass,
                     entryTemplate,
                     permissionNodes,
-                    context -> {
-                        try {
-                            Map<?, ?> map = (Map<?, ?>) field.get(
-                                parentProvider.apply(context)
-                            );
-                            if (map == null) return null;
-                            Object k = CommandFeedback.getArg(
-                                context,
-                                "key",
-                                (Class<?>) keyType
-                            );
-                            return map.get(k);
-                        } catch (Exception e) {
-                            return null;
-                        }
-                    }
+                    container.mapEntry(path.accessor(), (Class<?>) keyType),
+                    shared
                 );
                 if (!permissionNodes.isEmpty()) permissionNodes.removeLast();
                 node.addChild(entryNode);
@@ -670,57 +863,33 @@ public interface IBrigadierConfigurator {
 
         // Lists
         for (Field field : configFields.lists()) {
-            var commandNodeName = field.getName();
-            String permission;
-            if (!permissionNodes.isEmpty()) {
-                permissionNodes.add(commandNodeName);
-                permission = String.join(".", permissionNodes);
-                permissionNodes.removeLast();
-            } else {
-                permission = "";
-            }
+            FieldPath path = this.compileFieldPath(
+                container,
+                field,
+                permissionNodes,
+                commandPrefix
+            );
 
-            ParameterizedType listType =
-                (ParameterizedType) field.getGenericType();
+            ParameterizedType listType = (ParameterizedType) path
+                .accessor()
+                .genericType();
             Type valType = listType.getActualTypeArguments()[0];
             ArgumentType<?> valArg = getArgumentTypeFor(valType, true);
 
-            var node = literal(commandNodeName)
-                .requires(
-                    src ->
-                        (permission.isEmpty() &&
-                            src
-                                .permissions()
-                                .hasPermission(ownersPermission)) ||
-                        Permissions.check(
-                            src,
-                            permission,
-                            src.permissions().hasPermission(ownersPermission)
-                        )
-                )
-                .executes(context ->
-                    generateFieldInfo(
-                        context,
-                        parentProvider.apply(context),
-                        field,
-                        commandPrefix + " " + commandNodeName
-                    )
-                )
+            var node = literal(field.getName())
+                .requires(this.requirement(path))
+                .executes(context -> generateFieldInfo(context, path))
                 .build();
 
             var addNode = literal("add")
                 .then(
                     argument("value", valArg).executes(context ->
-                        CommandFeedback.editConfigListAdd(
-                            context,
-                            parentProvider.apply(context),
-                            this,
-                            field
-                        )
+                        CommandFeedback.editConfigListAdd(context, path, this)
                     )
                 )
                 .build();
             node.addChild(addNode);
+            node.addChild(this.buildPageNode(path));
 
             var editNode = literal("edit")
                 .then(
@@ -728,9 +897,8 @@ public interface IBrigadierConfigurator {
                         argument("value", valArg).executes(context ->
                             CommandFeedback.editConfigListSet(
                                 context,
-                                parentProvider.apply(context),
-                                this,
-                                field
+                                path,
+                                this
                             )
                         )
                     )
@@ -744,9 +912,8 @@ public interface IBrigadierConfigurator {
                         argument("value", valArg).executes(context ->
                             CommandFeedback.editConfigListInsert(
                                 context,
-                                parentProvider.apply(context),
-                                this,
-                                field
+                                path,
+                                this
                             )
                         )
                     )
@@ -759,23 +926,33 @@ public interface IBrigadierConfigurator {
                     argument("value", valArg)
                         .suggests((context, builder) -> {
                             try {
-                                List<?> list = (List<?>) field.get(
-                                    parentProvider.apply(context)
-                                );
-                                if (list != null) list.forEach(k ->
-                                    builder.suggest(String.valueOf(k))
-                                );
+                                List<?> list = path.isPermitted(context)
+                                    ? (List<?>) path.get(context)
+                                    : null;
+                                if (list != null) {
+                                    return path
+                                        .suggestions()
+                                        .suggest(
+                                            context.getSource(),
+                                            list,
+                                            list,
+                                            builder,
+                                            this.getSuggestionLimit()
+                                        );
+                                }
                             } catch (Exception e) {
-                                e.printStackTrace();
+                                getLogger(MOD_ID).severe(
+                                    "[Config2Brigadier] Problem occurred when suggesting config values: " +
+                                        e
+                                );
                             }
                             return builder.buildFuture();
                         })
                         .executes(context ->
                             CommandFeedback.editConfigListRemove(
                                 context,
-                                parentProvider.apply(context),
-                                this,
-                                field
+                                path,
+                                this
                             )
                         )
                 )
@@ -785,6 +962,7 @@ public interface IBrigadierConfigurator {
             // Nested editing for List entries
             if (valType instanceof Class<?> valClass && !isSimple(valClass)) {
                 var entryNode = literal("entry")
+                    .requires(this.junctionRequirement(path, valClass, shared))
                     .then(argument("index", IntegerArgumentType.integer(0)))
                     .build();
 
@@ -796,27 +974,15 @@ public interface IBrigadierConfigurator {
                     this
                 );
                 if (!permissionNodes.isEmpty()) permissionNodes.add(
-                    commandNodeName
+                    field.getName()
                 );
-                recursiveEditCommand(
+                this.buildObjectCommand(
                     indexArgNode,
+                    valClass,
                     entryTemplate,
                     permissionNodes,
-                    context -> {
-                        try {
-                            List<?> list = (List<?>) field.get(
-                                parentProvider.apply(context)
-                            );
-                            if (list == null) return null;
-                            int index = IntegerArgumentType.getInteger(
-                                context,
-                                "index"
-                            );
-                            return list.get(index);
-                        } catch (Exception e) {
-                            return null;
-                        }
-                    }
+                    container.listEntry(path.accessor()),
+                    shared
                 );
                 if (!permissionNodes.isEmpty()) permissionNodes.removeLast();
                 node.addChild(entryNode);
@@ -827,80 +993,66 @@ public interface IBrigadierConfigurator {
 
         // Sets
         for (Field field : configFields.sets()) {
-            var commandNodeName = field.getName();
-            String permission;
-            if (!permissionNodes.isEmpty()) {
-                permissionNodes.add(commandNodeName);
-                permission = String.join(".", permissionNodes);
-                permissionNodes.removeLast();
-            } else {
-                permission = "";
-            }
+            FieldPath path = this.compileFieldPath(
+                container,
+                field,
+                permissionNodes,
+                commandPrefix
+            );
 
-            ParameterizedType setType =
-                (ParameterizedType) field.getGenericType();
+            ParameterizedType setType = (ParameterizedType) path
+                .accessor()
+                .genericType();
             Type valType = setType.getActualTypeArguments()[0];
             ArgumentType<?> valArg = getArgumentTypeFor(valType, true);
 
-            var node = literal(commandNodeName)
-                .requires(
-                    src ->
-                        (permission.isEmpty() &&
-                            src
-                                .permissions()
-                                .hasPermission(ownersPermission)) ||
-                        Permissions.check(
-                            src,
-                            permission,
-                            src.permissions().hasPermission(ownersPermission)
-                        )
-                )
-                .executes(context ->
-                    generateFieldInfo(
-                        context,
-                        parentProvider.apply(context),
-                        field,
-                        commandPrefix + " " + commandNodeName
-                    )
-                )
+            var node = literal(field.getName())
+                .requires(this.requirement(path))
+                .executes(context -> generateFieldInfo(context, path))
                 .build();
 
             var addNode = literal("add")
                 .then(
                     argument("value", valArg).executes(context ->
-                        CommandFeedback.editConfigSetAdd(
-                            context,
-                            parentProvider.apply(context),
-                            this,
-                            field
-                        )
+                        CommandFeedback.editConfigSetAdd(context, path, this)
                     )
                 )
                 .build();
             node.addChild(addNode);
+            node.addChild(this.buildPageNode(path));
 
             var removeNode = literal("remove")
                 .then(
                     argument("value", valArg)
                         .suggests((context, builder) -> {
                             try {
-                                Set<?> set = (Set<?>) field.get(
-                                    parentProvider.apply(context)
-                                );
-                                if (set != null) set.forEach(k ->
-                                    builder.suggest(String.valueOf(k))
-                                );
+                                Set<?> set = path.isPermitted(context)
+                                    ? (Set<?>) path.get(context)
+                                    : null;
+                                if (set != null) {
+                                    return path
+                                        .suggestions()
+                                        .suggest(
+                                            context.getSource(),
+                                            set,
+                                            set,
+                                            builder,
+                                            this.getSuggestionLimit()
+                                        );
+                                }
                             } catch (Exception e) {
-                                e.printStackTrace();
+                                getLogger(MOD_ID).severe(
+                                    "[Config2Brigadier] Problem occurred when suggesting config values: " +
+                                        e
+                                );
                             }
                             return builder.buildFuture();
                         })
                         .executes(context ->
                             CommandFeedback.editConfigSetRemove(
                                 context,
-                                parentProvider.apply(context),
-                                this,
-                                field
+                                path,
+                                this
                             )
                         )
                 )
@@ -915,42 +1067,56 @@ public interface IBrigadierConfigurator {
             Field parentField = generator.parentField();
 
             String nodeName;
+            FieldPath.Container childContainer;
+            LiteralCommandNode<CommandSourceStack> child;
             // Root child doesn't have a name
             if (parentField == null) {
                 nodeName = root.getName();
+                childContainer = container;
+                // Root child cannot be executed
+                child = literal(nodeName).executes(context -> -1).build();
             } else {
                 nodeName = parentField.getName();
+                FieldPath path = this.compileFieldPath(
+                    container,
+                    parentField,
+                    permissionNodes,
+                    commandPrefix
+                );
+                childContainer = container.nested(path.accessor());
+                child = literal(nodeName)
+                    .requires(
+                        this.junctionRequirement(
+                            path,
+                            path.accessor().type(),
+                            shared
+                        )
+                    )
+                    .executes(context -> generateFieldInfo(context, path))
+                    .build();
             }
 
-            LiteralCommandNode<CommandSourceStack> child = literal(nodeName)
-                .executes(context -> {
-                    if (parentField != null) {
-                        return generateFieldInfo(
-                            context,
-                            parentProvider.apply(context),
-                            parentField,
-                            commandPrefix + " " + nodeName
-                        );
-                    }
-
-                    // Root child cannot be executed
-                    return -1;
-                })
-                .build();
-
             if (!permissionNodes.isEmpty()) {
                 permissionNodes.add(nodeName);
             }
-            recursiveEditCommand(child, generator, permissionNodes, context -> {
-                try {
-                    Object p = parentProvider.apply(context);
-                    if (p == null) return null;
-                    parentField.setAccessible(true);
-                    return parentField.get(p);
-                } catch (Exception e) {
-                    return null;
-                }
-            });
+            if (parentField == null) {
+                this.recursiveEditCommand(
+                    child,
+                    generator,
+                    permissionNodes,
+                    childContainer,
+                    shared
+                );
+            } else {
+                this.buildObjectCommand(
+                    child,
+                    FieldAccessor.of(parentField).type(),
+                    generator,
+                    permissionNodes,
+                    childContainer,
+                    shared
+                );
+            }
             if (!permissionNodes.isEmpty()) {
                 permissionNodes.removeLast();
             }
@@ -958,6 +1124,253 @@ public interface IBrigadierConfigurator {
         }
     }
 
+    /**
+     * Generates the nodes of the object at the junction node, e.g. a map entry or a nested object.
+     * Nodes of classes used at several places are shared.
+     * @param node junction node to attach the fields to.
+     * @param clazz class of the object.
+     * @param fields fields of the class.
+     * @param permissionNodes permission nodes of the junction.
+     * @param container container of the object.
+     * @param shared shared subtrees of this command generation.
+     */
+    private void buildObjectCommand(
+        CommandNode<CommandSourceStack> node,
+        Class<?> clazz,
+        ConfigFieldList fields,
+        List<String> permissionNodes,
+        FieldPath.Container container,
+        SharedSubtrees shared
+    ) {
+        if (!shared.isShared(clazz)) {
+            this.recursiveEditCommand(
+                node,
+                fields,
+                permissionNodes,
+                container,
+                shared
+            );
+            return;
+        }
+
+        var junction = new FieldPath.Junction(
+            container,
+            String.join(".", permissionNodes),
+            String.join(" ", permissionNodes)
+        );
+        shared.attach(node, clazz, junction, (subtree, sharedContainer) -> {
+            // Permissions and commands are relative to the junction, e.g. ".message"
+            var relativeNodes = new LinkedList<String>();
+            relativeNodes.add("");
+            this.recursiveEditCommand(
+                subtree,
+                fields,
+                relativeNodes,
+                sharedContainer,
+                shared
+            );
+        });
+    }
+
+    /**
+     * Finds the classes of map / list entries and nested objects that are used
+     * at several places of the config, so their nodes can be shared.
+     * @param configFields fields of the config.
+     * @return classes used more than once.
+     */
+    private Set<Class<?>> findRepeatedClasses(ConfigFieldList configFields) {
+        Map<Class<?>, Integer> uses = new HashMap<>();
+        this.countClassUses(configFields, uses);
+
+        Set<Class<?>> repeated = new HashSet<>();
+        uses.forEach((clazz, count) -> {
+            if (count > 1) {
+                repeated.add(clazz);
+            }
+        });
+        return repeated;
+    }
+
+    private void countClassUses(
+        ConfigFieldList fields,
+        Map<Class<?>, Integer> uses
+    ) {
+        for (Field field : fields.maps()) {
+            ParameterizedType mapType = (ParameterizedType) FieldAccessor.of(
+                field
+            ).genericType();
+            this.countClassUse(
+                mapType.getActualTypeArguments()[1],
+                null,
+                uses
+            );
+        }
+        for (Field field : fields.lists()) {
+            ParameterizedType listType = (ParameterizedType) FieldAccessor.of(
+                field
+            ).genericType();
+            this.countClassUse(
+                listType.getActualTypeArguments()[0],
+                null,
+                uses
+            );
+        }
+        for (ConfigFieldList nested : fields.nestedFields()) {
+            if (nested.parentField() != null) {
+                this.countClassUse(
+                    FieldAccessor.of(nested.parentField()).type(),
+                    nested,
+                    uses
+                );
+            }
+        }
+    }
+
+    private void countClassUse(
+        Type type,
+        @Nullable ConfigFieldList fields,
+        Map<Class<?>, Integer> uses
+    ) {
+        if (!(type instanceof Class<?> clazz) || isSimple(clazz)) {
+            return;
+        }
+        // Fields of a class are only counted once, as its nodes are only built once
+        if (uses.merge(clazz, 1, Integer::sum) == 1) {
+            this.countClassUses(
+                fields != null
+                    ? fields
+                    : ConfigFieldList.template(null, clazz, this),
+                uses
+            );
+        }
+    }
+
+    /**
+     * Gets the requirement of the option node. Nodes in shared subtrees are used
+     * for several places, their permission is checked on use, see {@link FieldPath#isPermitted}.
+     * Executed commands check the permission again without the cache.
+     * @param path path of the option.
+     * @return node requirement.
+     */
+    private Predicate<CommandSourceStack> requirement(FieldPath path) {
+        if (path.isShared()) {
+            return src -> true;
+        }
+        String permission = path.permission();
+        return src -> PermissionCache.check(src, permission);
+    }
+
+    /**
+     * Gets the requirement of the node leading to the object of the field, e.g. the
+     * {@code entry} node of a map. Nodes of shared subtrees are shown to everyone,
+     * so their junction requires the permission of the field instead.
+     * Other junctions have no requirement, as their options have one.
+     * @param path path of the field holding the object.
+     * @param clazz class of the object.
+     * @param shared shared subtrees of this command generation.
+     * @return node requirement.
+     */
+    private Predicate<CommandSourceStack> junctionRequirement(
+        FieldPath path,
+        Class<?> clazz,
+        SharedSubtrees shared
+    ) {
+        return shared.isShared(clazz)
+            ? this.requirement(path)
+            : src -> true;
+    }
+
+    /**
+     * Suggests the keys of the map field that start with the typed text.
+     * @param context command context.
+     * @param builder suggestions builder.
+     * @param path path of the map field.
+     * @return suggestions.
+     */
+    private CompletableFuture<Suggestions> suggestMapKeys(
+        CommandContext<CommandSourceStack> context,
+        SuggestionsBuilder builder,
+        FieldPath path
+    ) {
+        if (!path.isPermitted(context)) {
+            return builder.buildFuture();
+        }
+        try {
+            Map<?, ?> map = (Map<?, ?>) path.get(context);
+            if (map != null) {
+                return path
+                    .suggestions()
+                    .suggest(
+                        context.getSource(),
+                        map,
+                        map.keySet(),
+                        builder,
+                        this.getSuggestionLimit()
+                    );
+            }
+        } catch (Exception e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when suggesting config values: " +
+                    e
+            );
+        }
+        return builder.buildFuture();
+    }
+
+    /**
+     * Generates the {@code page <page> [<pageSize>]} node of map, list and set options,
+     * which shows their entries page by page, see {@link InfoPage}.
+     * @param path path of the option.
+     * @return page node.
+     */
+    private LiteralCommandNode<CommandSourceStack> buildPageNode(
+        FieldPath path
+    ) {
+        return literal("page")
+            .then(
+                argument("page", IntegerArgumentType.integer(1))
+                    .executes(context -> generateFieldInfo(context, path))
+                    .then(
+                        argument(
+                            "pageSize",
+                            IntegerArgumentType.integer(1, InfoPage.MAX_PAGE_SIZE)
+                        ).executes(context -> generateFieldInfo(context, path))
+                    )
+            )
+            .build();
+    }
+
+    /**
+     * Compiles the path for the field.
+     * @param container container of the field.
+     * @param field field to compile path for.
+     * @param permissionNodes current permission nodes. If empty, permission will be empty too.
+     * @param commandPrefix command of the container.
+     * @return compiled field path.
+     */
+    private FieldPath compileFieldPath(
+        FieldPath.Container container,
+        Field field,
+        List<String> permissionNodes,
+        String commandPrefix
+    ) {
+        String permission;
+        if (!permissionNodes.isEmpty()) {
+            permissionNodes.add(field.getName());
+            permission = String.join(".", permissionNodes);
+            permissionNodes.removeLast();
+        } else {
+            permission = "";
+        }
+
+        return new FieldPath(
+            container,
+            FieldAccessor.of(field),
+            permission,
+            commandPrefix + " " + field.getName()
+        );
+    }
+
     private boolean isSimple(Class<?> clazz) {
         return (
             clazz.isPrimitive() ||
@@ -1007,20 +1420,85 @@ public interface IBrigadierConfigurator {
         return IBrigadierConfigurator.COMMENT_PREFIX;
     }
 
+    /**
+     * Gets the fsync policy used when saving the config with {@link #writeToFile(File)}.
+     * @return {@link FsyncPolicy#FILE} by default.
+     */
+    default FsyncPolicy getFsyncPolicy() {
+        return FsyncPolicy.FILE;
+    }
+
+    /**
+     * Whether to save the config without indentation and new lines.
+     * Compact files are smaller and faster to write, but harder to edit by hand.
+     * @return false by default.
+     */
+    default boolean useCompactJson() {
+        return false;
+    }
+
+    /**
+     * Gets the number of rotating backups to keep when saving the config,
+     * e.g. {@code config.json.bak1}, {@code config.json.bak2}.
+     * Backups are also used when the config file cannot be parsed on load.
+     * @return 0 by default, which disables backups.
+     */
+    default int getBackupCount() {
+        return 0;
+    }
+
+    /**
+     * Gets the number of map, list or set entries shown per page
+     * by the option info. Other pages are shown with {@code page <page> [<pageSize>]}.
+     * @return 10 by default, at most {@link InfoPage#MAX_PAGE_SIZE}.
+     */
+    default int getInfoPageSize() {
+        return 10;
+    }
+
+    /**
+     * Gets the max number of map keys, list or set values suggested
+     * when typing a command. Only entries starting with the typed text are suggested.
+     * Suggestions are computed off the server thread, see {@link AsyncSuggestions}.
+     * @return 100 by default.
+     */
+    default int getSuggestionLimit() {
+        return 100;
+    }
+
+    /**
+     * Whether to generate the compact {@code edit <path> [value]} command instead of
+     * a command node per option. The command tree of the compact command has the same size
+     * regardless of the number of options, which keeps it small for configs with many options.
+     * Values are given as json (strings can be given as is), map, list and set options
+     * are edited as a whole.
+     * @return false by default.
+     */
+    default boolean useCompactEditCommand() {
+        return false;
+    }
+
     /**
      * Saves the config to the given file.
+     * The file is replaced atomically, so it's never left partially written.
      *
      * @param file file to save config to
      */
     default void writeToFile(File file) {
-        try (
-            Writer writer = new OutputStreamWriter(
-                new FileOutputStream(file),
-                StandardCharsets.UTF_8
-            )
-        ) {
-            GSON.toJson(this, writer);
-        } catch (IOException e) {
+        try {
+            ConfigStorage storage = ConfigStorage.get(this);
+            if (storage != null && storage.file().equals(file.toPath())) {
+                // Skips the write if nothing changed
+                storage.save(this);
+            } else {
+                AtomicFileWriter.write(
+                    file.toPath(),
+                    this.getFsyncPolicy(),
+                    this.getBackupCount(),
+                    JsonBuffer.serialize(this, this.useCompactJson())
+                );
+            }
+        } catch (IOException | JsonIOException e) {
             getLogger(MOD_ID).severe(
                 "[Config2Brigadier] Problem occurred when saving config: " +
                     e.getMessage()
@@ -1046,9 +1524,13 @@ public interface IBrigadierConfigurator {
     ) {
         MutableComponent textFeedback = Component.literal("");
         String attributeName = attribute.getName();
+        DescriptionIndex.Description description = DescriptionIndex.of(
+            this,
+            parent.getClass()
+        ).get(attribute);
 
         // Comment from @BrigadierDescription annotation
-        String fieldDescription = this.getDescription(attribute);
+        String fieldDescription = description.description();
         boolean emptyBrigadierDesc = fieldDescription.isEmpty();
         if (!emptyBrigadierDesc) {
             // Our annotation
@@ -1056,37 +1538,14 @@ public interface IBrigadierConfigurator {
         }
 
         // Comments from @Serialized name annotations.
-        // Filters out relevant fields (ones that contain same name as field)
-        Field[] fields = parent.getClass().getFields();
-        String prefix = this.getCommentPrefix() + attributeName;
-        List<Field> descriptionList = Arrays.stream(fields)
-            .filter(field -> {
-                String name = field.getName();
-                return name.matches("^" + prefix + "\\d*$");
-            })
-            .toList();
-
-        // -1 as we don't want to include the option field itself, but just its comments.
-        int size = descriptionList.size();
-        if (size > 0) {
-            String[] sortedDescriptions = new String[size];
-
-            descriptionList.forEach(field -> {
-                int index = NumberUtils.toInt(
-                    field.getName().replaceAll("\\D+", ""),
-                    0
-                );
-                sortedDescriptions[index] = this.getDescription(field);
-            });
-
-            for (int i = 0; i < sortedDescriptions.length; ++i) {
-                // Adding descriptions
-                String desc = sortedDescriptions[i];
-                if (i == 0 && emptyBrigadierDesc) textFeedback.append(
-                    Component.literal(desc)
-                );
-                else textFeedback.append(Component.literal("\n").append(desc));
-            }
+        List<String> comments = description.comments();
+        for (int i = 0; i < comments.size(); ++i) {
+            // Adding descriptions
+            String desc = comments.get(i);
+            if (i == 0 && emptyBrigadierDesc) textFeedback.append(
+                Component.literal(desc)
+            );
+            else textFeedback.append(Component.literal("\n").append(desc));
         }
 
         if (textFeedback.getSiblings().isEmpty()) {
@@ -1101,6 +1560,37 @@ public interface IBrigadierConfigurator {
         return textFeedback;
     }
 
+    /**
+     * Generates text information for field and sends it to command executor.
+     *
+     * @param context command executor.
+     * @param path    compiled path of the field to generate description for.
+     * @return 1 as success for command execution.
+     */
+    @ApiStatus.Internal
+    default int generateFieldInfo(
+        CommandContext<CommandSourceStack> context,
+        FieldPath path
+    ) {
+        if (!path.isPermittedUncached(context)) {
+            context
+                .getSource()
+                .sendFailure(
+                    Component.translatable(
+                        "config2brigadier.command.edit.unknown",
+                        path.displayName(context)
+                    ).withStyle(ChatFormatting.RED)
+                );
+            return 0;
+        }
+        return this.generateFieldInfo(
+            context,
+            path.resolveParent(context),
+            path.field(),
+            path.commandPrefix(context)
+        );
+    }
+
     /**
      * Generates text information for field and sends it to command executor.
      *
@@ -1127,6 +1617,7 @@ public interface IBrigadierConfigurator {
                 );
             return 0;
         }
+        FieldAccessor accessor = FieldAccessor.of(attribute);
         MutableComponent fieldDesc = Component.literal("").append(
             this.generateFieldDescription(parent, attribute).withStyle(
                 ChatFormatting.ITALIC
@@ -1135,47 +1626,41 @@ public interface IBrigadierConfigurator {
         fieldDesc.withStyle(ChatFormatting.RESET);
 
         // Default value
-        String defaultOption = "";
-        if (attribute.isAnnotationPresent(BrigadierDescription.class)) {
-            defaultOption = attribute
-                .getAnnotation(BrigadierDescription.class)
-                .defaultOption();
-
-            if (!defaultOption.isEmpty()) {
-                final String finalDefaultOption = defaultOption;
-                MutableComponent defaultValueComponent = Component.literal(
-                    defaultOption
-                )
-                    .withStyle(ChatFormatting.DARK_GREEN)
-                    .withStyle(style ->
-                        style
-                            .withHoverEvent(
-                                new HoverEvent.ShowText(
-                                    Component.literal(finalDefaultOption)
-                                )
-                            )
-                            .withClickEvent(
-                                new ClickEvent.SuggestCommand(
-                                    finalDefaultOption
-                                )
+        String defaultOption = DescriptionIndex.of(this, parent.getClass())
+            .get(attribute)
+            .defaultOption();
+        if (!defaultOption.isEmpty()) {
+            MutableComponent defaultValueComponent = Component.literal(
+                defaultOption
+            )
+                .withStyle(ChatFormatting.DARK_GREEN)
+                .withStyle(style ->
+                    style
+                        .withHoverEvent(
+                            new HoverEvent.ShowText(
+                                Component.literal(defaultOption)
                             )
-                    );
-                fieldDesc
-                    .append("\n")
-                    .append(
-                        Component.translatable(
-                            "editGamerule.default",
-                            defaultValueComponent
                         )
+                        .withClickEvent(
+                            new ClickEvent.SuggestCommand(defaultOption)
+                        )
+                );
+            fieldDesc
+                .append("\n")
+                .append(
+                    Component.translatable(
+                        "editGamerule.default",
+                        defaultValueComponent
                     )
-                    .withStyle(ChatFormatting.GRAY);
-            }
+                )
+                .withStyle(ChatFormatting.GRAY);
         }
 
+        // The compact edit command has no entry subcommands
+        boolean entryActions = !this.useCompactEditCommand();
         try {
-            attribute.setAccessible(true);
-            Object val = attribute.get(parent);
-            if (!attribute.getType().isMemberClass()) {
+            Object val = accessor.get(parent);
+            if (!accessor.type().isMemberClass()) {
                 if (val instanceof Map<?, ?> map) {
                     fieldDesc
                         .append("\n")
@@ -1186,26 +1671,46 @@ public interface IBrigadierConfigurator {
                         );
 
                     ParameterizedType mapType =
-                        (ParameterizedType) attribute.getGenericType();
+                        (ParameterizedType) accessor.genericType();
                     Type valType = mapType.getActualTypeArguments()[1];
                     boolean complex =
                         valType instanceof Class<?> valClass &&
                         !isSimple(valClass);
 
-                    map.forEach((k, v) -> {
+                    InfoPage page = InfoPage.of(
+                        context,
+                        map.size(),
+                        this.getInfoPageSize()
+                    );
+                    int index = 0;
+                    for (Map.Entry<?, ?> mapEntry : map.entrySet()) {
+                        if (index++ < page.from()) {
+                            continue;
+                        }
+                        if (index > page.to()) {
+                            break;
+                        }
+                        Object k = mapEntry.getKey();
+                        Object v = mapEntry.getValue();
                         String keyStr =
                             k instanceof String
                                 ? (String) k
                                 : String.valueOf(k);
-                        String valStr = isSimple(v.getClass())
-                            ? String.valueOf(v)
-                            : MSG_GSON.toJson(v);
+                        // Only the entries on the page are serialized
+                        String valStr = InfoPage.shorten(
+                            v != null && isSimple(v.getClass())
+                                ? String.valueOf(v)
+                                : MSG_GSON.toJson(v)
+                        );
+                        if (!page.fits(keyStr + valStr)) {
+                            break;
+                        }
 
                         MutableComponent line = Component.literal(
                             "\n" + keyStr + " -> " + valStr + " "
                         ).withStyle(ChatFormatting.WHITE);
 
-                        if (complex) {
+                        if (complex && entryActions) {
                             MutableComponent entry = Component.literal("[+]")
                                 .withStyle(ChatFormatting.AQUA)
                                 .withStyle(style ->
@@ -1279,16 +1784,19 @@ public interface IBrigadierConfigurator {
                                     )
                             );
 
-                        line
-                            .append(edit)
-                            .append(
-                                Component.literal(" | ").withStyle(
-                                    ChatFormatting.GRAY
+                        if (entryActions) {
+                            line
+                                .append(edit)
+                                .append(
+                                    Component.literal(" | ").withStyle(
+                                        ChatFormatting.GRAY
+                                    )
                                 )
-                            )
-                            .append(remove);
+                                .append(remove);
+                        }
                         fieldDesc.append(line);
-                    });
+                    }
+                    page.appendNavigation(fieldDesc, commandPrefix);
                 } else if (val instanceof List<?> list) {
                     fieldDesc
                         .append("\n")
@@ -1299,24 +1807,36 @@ public interface IBrigadierConfigurator {
                         );
 
                     ParameterizedType listType =
-                        (ParameterizedType) attribute.getGenericType();
+                        (ParameterizedType) accessor.genericType();
                     Type valType = listType.getActualTypeArguments()[0];
                     boolean complex =
                         valType instanceof Class<?> valClass &&
                         !isSimple(valClass);
 
-                    for (int i = 0; i < list.size(); i++) {
+                    InfoPage page = InfoPage.of(
+                        context,
+                        list.size(),
+                        this.getInfoPageSize()
+                    );
+                    for (int i = page.from(); i < page.to(); i++) {
                         Object v = list.get(i);
-                        String valStr = isSimple(v.getClass())
-                            ? String.valueOf(v)
-                            : MSG_GSON.toJson(v);
+                        String fullStr =
+                            v != null && isSimple(v.getClass())
+                                ? String.valueOf(v)
+                                : MSG_GSON.toJson(v);
+                        String valStr = InfoPage.shorten(fullStr);
+                        if (!page.fits(valStr)) {
+                            break;
+                        }
+                        // Shortened values wouldn't fit into the chat, they get no remove button
+                        boolean removable = valStr.equals(fullStr);
                         final int finalI = i;
 
                         MutableComponent line = Component.literal(
                             "\n" + (i + 1) + ". " + valStr + " "
                         ).withStyle(ChatFormatting.WHITE);
 
-                        if (complex) {
+                        if (complex && entryActions) {
                             MutableComponent entry = Component.literal("[+]")
                                 .withStyle(ChatFormatting.AQUA)
                                 .withStyle(style ->
@@ -1384,16 +1904,21 @@ public interface IBrigadierConfigurator {
                                     )
                             );
 
-                        line
-                            .append(edit)
-                            .append(
-                                Component.literal(" | ").withStyle(
-                                    ChatFormatting.GRAY
-                                )
-                            )
-                            .append(remove);
+                        if (entryActions) {
+                            line.append(edit);
+                            if (removable) {
+                                line
+                                    .append(
+                                        Component.literal(" | ").withStyle(
+                                            ChatFormatting.GRAY
+                                        )
+                                    )
+                                    .append(remove);
+                            }
+                        }
                         fieldDesc.append(line);
                     }
+                    page.appendNavigation(fieldDesc, commandPrefix);
                 } else if (val instanceof Set<?> set) {
                     fieldDesc
                         .append("\n")
@@ -1402,10 +1927,28 @@ public interface IBrigadierConfigurator {
                                 ChatFormatting.GRAY
                             )
                         );
+                    InfoPage page = InfoPage.of(
+                        context,
+                        set.size(),
+                        this.getInfoPageSize()
+                    );
+                    int index = 0;
                     for (Object v : set) {
-                        String valStr = isSimple(v.getClass())
-                            ? String.valueOf(v)
-                            : MSG_GSON.toJson(v);
+                        if (index++ < page.from()) {
+                            continue;
+                        }
+                        if (index > page.to()) {
+                            break;
+                        }
+                        String fullStr =
+                            v != null && isSimple(v.getClass())
+                                ? String.valueOf(v)
+                                : MSG_GSON.toJson(v);
+                        String valStr = InfoPage.shorten(fullStr);
+                        if (!page.fits(valStr)) {
+                            break;
+                        }
+                        boolean removable = valStr.equals(fullStr);
 
                         MutableComponent line = Component.literal(
                             "\n - " + valStr + " "
@@ -1432,9 +1975,12 @@ public interface IBrigadierConfigurator {
                                     )
                             );
 
-                        line.append(remove);
+                        if (entryActions && removable) {
+                            line.append(remove);
+                        }
                         fieldDesc.append(line);
                     }
+                    page.appendNavigation(fieldDesc, commandPrefix);
                 } else {
                     String value =
                         val != null
@@ -1486,9 +2032,9 @@ public interface IBrigadierConfigurator {
         }
 
         // Field type
-        if (!attribute.getType().isMemberClass()) {
+        if (!accessor.type().isMemberClass()) {
             var type = Component.literal(
-                attribute.getType().getSimpleName()
+                accessor.type().getSimpleName()
             ).withStyle(ChatFormatting.AQUA);
             fieldDesc
                 .append("\n")
@@ -0,0 +1,173 @@
+package org.samo_lego.config2brigadier.common;
+
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Config section that is only deserialized once it's used.
+ * <p>
+ * Use it as the type of rarely used nested objects or collections, e.g.
+ * {@code public LazySection<NestedValues> nested = LazySection.of(new NestedValues());}.
+ * When the config is loaded, only the json of the section is kept, and it's parsed
+ * on the first {@link #get()}. Commands edit the section value as if it was a plain field
+ * and only load it once they access it. Sections that were never loaded
+ * are saved from the kept json.
+ * @param <T> type of the section value.
+ */
+public final class LazySection<T> {
+
+    @Nullable
+    private String json;
+    @Nullable
+    private Type type;
+    @Nullable
+    private T value;
+
+    private LazySection(
+        @Nullable String json,
+        @Nullable Type type,
+        @Nullable T value
+    ) {
+        this.json = json;
+        this.type = type;
+        this.value = value;
+    }
+
+    /**
+     * Creates a loaded section, e.g. for the default value of the field.
+     * @param value section value.
+     * @return section holding the value.
+     */
+    public static <T> LazySection<T> of(@Nullable T value) {
+        return new LazySection<>(null, null, value);
+    }
+
+    /**
+     * Gets the section value, parsing it first if it isn't loaded yet.
+     * @return section value.
+     */
+    @Nullable
+    public synchronized T get() {
+        if (this.json != null) {
+            this.value = GSON.fromJson(this.json, this.type);
+            this.json = null;
+            this.type = null;
+        }
+        return this.value;
+    }
+
+    /**
+     * Replaces the section value. Kept json is dropped without parsing.
+     * @param value new section value.
+     */
+    public synchronized void set(@Nullable T value) {
+        this.value = value;
+        this.json = null;
+        this.type = null;
+    }
+
+    /**
+     * Whether the section value was already parsed.
+     */
+    public synchronized boolean isLoaded() {
+        return this.json == null;
+    }
+
+    /**
+     * Gets the json of the section, without loading it.
+     */
+    private synchronized JsonElement tree() {
+        return this.json != null
+            ? JsonParser.parseString(this.json)
+            : GSON.toJsonTree(this.value);
+    }
+
+    /**
+     * Sections are equal if they serialize to the same json.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return (
+            obj instanceof LazySection<?> other &&
+            this.tree().equals(other.tree())
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return this.tree().hashCode();
+    }
+
+    /**
+     * Keeps the json of sections when reading and writes it back
+     * as long as they aren't loaded.
+     */
+    static final class AdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <A> TypeAdapter<A> create(Gson gson, TypeToken<A> typeToken) {
+            if (typeToken.getRawType() != LazySection.class) {
+                return null;
+            }
+            Type valueType =
+                typeToken.getType() instanceof ParameterizedType parameterized
+                    ? parameterized.getActualTypeArguments()[0]
+                    : Object.class;
+            TypeAdapter<JsonElement> jsonAdapter = gson.getAdapter(
+                JsonElement.class
+            );
+            TypeAdapter<Object> valueAdapter =
+                (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(valueType));
+
+            return (TypeAdapter<A>) new TypeAdapter<LazySection<Object>>() {
+                @Override
+                public void write(JsonWriter out, LazySection<Object> section)
+                    throws IOException {
+                    if (section == null) {
+                        out.nullValue();
+                        return;
+                    }
+                    String json;
+                    Object value;
+                    synchronized (section) {
+                        json = section.json;
+                        value = section.value;
+                    }
+                    if (json != null) {
+                        // Written as a tree, as not all writers support raw values
+                        jsonAdapter.write(out, JsonParser.parseString(json));
+                    } else {
+                        valueAdapter.write(out, value);
+                    }
+                }
+
+                @Override
+                public LazySection<Object> read(JsonReader in)
+                    throws IOException {
+                    JsonElement json = jsonAdapter.read(in);
+                    if (json == null || json instanceof JsonNull) {
+                        return LazySection.of(null);
+                    }
+                    return new LazySection<>(json.toString(), valueType, null);
+                }
+            };
+        }
+    }
+}
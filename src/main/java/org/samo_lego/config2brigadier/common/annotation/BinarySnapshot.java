@@ -0,0 +1,22 @@
+package org.samo_lego.config2brigadier.common.annotation;
+
+import java.io.File;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.function.Supplier;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+
+/**
+ * Makes {@link IBrigadierConfigurator#loadConfigFile(File, Class, Supplier)} keep a
+ * binary snapshot of the config next to the json file (e.g. {@code config.json.snapshot}).
+ * <p>
+ * If the json file wasn't changed since the snapshot was written, the config is
+ * loaded from the snapshot, which is faster for huge configs.
+ * The json file stays the source of truth, hand edits are picked up as usual.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface BinarySnapshot {
+}
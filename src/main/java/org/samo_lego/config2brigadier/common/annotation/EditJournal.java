@@ -0,0 +1,32 @@
+package org.samo_lego.config2brigadier.common.annotation;
+
+import java.io.File;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.function.Supplier;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+
+/**
+ * Makes edits from commands append to a journal next to the config file
+ * (e.g. {@code config.json.journal}) instead of rewriting the whole file.
+ * Only used for configs loaded with {@link IBrigadierConfigurator#loadConfigFile(File, Class, Supplier)}.
+ * <p>
+ * The json file is rewritten (compacted) once the journal gets too long,
+ * periodically and when the server stops. When loading, the journal is
+ * applied on top of the json file.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EditJournal {
+    /**
+     * Number of journaled edits after which the json file is rewritten.
+     */
+    int maxEntries() default 1000;
+
+    /**
+     * Delay between the first journaled edit and rewriting the json file, in milliseconds.
+     */
+    long compactDelay() default 600_000;
+}
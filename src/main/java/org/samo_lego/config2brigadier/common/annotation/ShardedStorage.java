@@ -0,0 +1,27 @@
+package org.samo_lego.config2brigadier.common.annotation;
+
+import java.io.File;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.function.Supplier;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+
+/**
+ * Stores a large map or collection field of the config outside of the config file,
+ * in a directory next to it (e.g. {@code config.json.fieldName/shard-0.json}).
+ * Only used for configs loaded with {@link IBrigadierConfigurator#loadConfigFile(File, Class, Supplier)}.
+ * <p>
+ * Map entries are split into shards by the hash of their key, and only the shards
+ * of changed entries are written when the map is edited from commands.
+ * Other collections are stored in a single file.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ShardedStorage {
+    /**
+     * Number of files map entries are split into.
+     */
+    int shards() default 16;
+}
@@ -0,0 +1,72 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.world.entity.Entity;
+
+/**
+ * Computes suggestions of large collection fields off the server thread.
+ * <p>
+ * Suggestion providers take a snapshot of the values on the server thread,
+ * then the suggestions are computed on a virtual thread and completed asynchronously.
+ * A newer request of the same entity cancels its pending one, as players
+ * request new suggestions on every key press. Requests of sources without an entity,
+ * e.g. the console, are never cancelled.
+ */
+public final class AsyncSuggestions {
+
+    private static final ExecutorService WORKER =
+        Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Pending suggestions per entity uuid, or per command source if it has no entity.
+     */
+    private static final Map<Object, CompletableFuture<Suggestions>> PENDING =
+        new ConcurrentHashMap<>();
+
+    private AsyncSuggestions() {}
+
+    /**
+     * Computes the suggestions on a virtual thread.
+     * @param source command source requesting the suggestions.
+     * @param task computes the suggestions, gets whether the request was cancelled in the meantime.
+     *             Must only use values that were snapshotted on the calling thread.
+     * @return suggestions, cancelled if a newer request of the source comes in first.
+     */
+    public static CompletableFuture<Suggestions> supply(
+        CommandSourceStack source,
+        Function<BooleanSupplier, Suggestions> task
+    ) {
+        // Names can be shared, e.g. by command blocks, or changed
+        Entity entity = source.getEntity();
+        Object requester = entity != null ? entity.getUUID() : source;
+        CompletableFuture<Suggestions> future = new CompletableFuture<>();
+        CompletableFuture<Suggestions> previous = PENDING.put(
+            requester,
+            future
+        );
+        if (previous != null) {
+            previous.cancel(false);
+        }
+
+        WORKER.execute(() -> {
+            try {
+                if (!future.isDone()) {
+                    future.complete(task.apply(future::isDone));
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                PENDING.remove(requester, future);
+            }
+        });
+        return future;
+    }
+}
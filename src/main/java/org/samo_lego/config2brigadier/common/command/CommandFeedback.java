@@ -3,6 +3,11 @@ package org.samo_lego.config2brigadier.common.command;
 import static java.lang.System.getLogger;
 import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import com.mojang.brigadier.arguments.BoolArgumentType;
 import com.mojang.brigadier.arguments.DoubleArgumentType;
 import com.mojang.brigadier.arguments.FloatArgumentType;
@@ -14,10 +19,12 @@ import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
 import net.minecraft.ChatFormatting;
@@ -25,8 +32,14 @@ import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.Nullable;
 import org.samo_lego.config2brigadier.common.Config2Brigadier;
 import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.io.ConfigJournal;
+import org.samo_lego.config2brigadier.common.io.SaveScheduler;
+import org.samo_lego.config2brigadier.common.util.ConfigFieldList;
+import org.samo_lego.config2brigadier.common.util.ConfigListeners;
+import org.samo_lego.config2brigadier.common.util.FieldAccessor;
 
 /**
  * Takes care of field editing and feedbacks for executed commands.
@@ -36,27 +49,24 @@ public class CommandFeedback {
     /**
      * Edits the config field.
      * @param context command executor to send feedback to.
-     * @param parent parent object that contains field that will be changed.
+     * @param path compiled path of the field to edit.
      * @param config the config object which fields are getting modified.
-     * @param attribute field to edit.
      * @param value new value for the field.
-     * @param fieldConsumer lambda that modifies the field (needs to be different for each primitive).
+     * @param fieldConsumer lambda that modifies the field of given parent (needs to be different for each primitive).
      *                      Should return true for success, false on error.
      * @return 1 for success, 0 for error.
      */
     public static int editConfigAttribute(
         CommandContext<CommandSourceStack> context,
-        Object parent,
+        FieldPath path,
         IBrigadierConfigurator config,
-        Field attribute,
         Object value,
-        Predicate<Field> fieldConsumer
+        Predicate<Object> fieldConsumer
     ) {
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             value,
             "config2brigadier.command.edit.success",
             false,
@@ -67,25 +77,64 @@ public class CommandFeedback {
     /**
      * Edits the config field with custom translation key.
      * @param context command executor to send feedback to.
-     * @param parent parent object that contains field that will be changed.
+     * @param path compiled path of the field to edit.
      * @param config the config object which fields are getting modified.
-     * @param attribute field to edit.
      * @param value new value for the field.
      * @param translationKey custom translation key for success message.
      * @param swapArgs whether to swap optionText and newValue in translation.
-     * @param fieldConsumer lambda that modifies the field.
+     * @param fieldConsumer lambda that modifies the field of given parent.
      * @return 1 for success, 0 for error.
      */
     public static int editConfigAttribute(
         CommandContext<CommandSourceStack> context,
-        Object parent,
+        FieldPath path,
         IBrigadierConfigurator config,
-        Field attribute,
         Object value,
         String translationKey,
         boolean swapArgs,
-        Predicate<Field> fieldConsumer
+        Predicate<Object> fieldConsumer
+    ) {
+        return editConfigAttribute(
+            context,
+            path,
+            config,
+            value,
+            translationKey,
+            swapArgs,
+            null,
+            fieldConsumer
+        );
+    }
+
+    /**
+     * Edits the config field with custom translation key.
+     * @param edit edit of the single map, list or set entry that is changed, so only the entry
+     *             is journaled and only its shard is saved. Null if the field is changed as a whole.
+     * @see #editConfigAttribute(CommandContext, FieldPath, IBrigadierConfigurator, Object, String, boolean, Predicate)
+     */
+    private static int editConfigAttribute(
+        CommandContext<CommandSourceStack> context,
+        FieldPath path,
+        IBrigadierConfigurator config,
+        Object value,
+        String translationKey,
+        boolean swapArgs,
+        @Nullable ConfigJournal.EntryEdit edit,
+        Predicate<Object> fieldConsumer
     ) {
+        // Node requirements may be cached or missing (shared subtrees)
+        if (!path.isPermittedUncached(context)) {
+            context
+                .getSource()
+                .sendFailure(
+                    Component.translatable(
+                        "config2brigadier.command.edit.unknown",
+                        path.displayName(context)
+                    ).withStyle(ChatFormatting.RED)
+                );
+            return 0;
+        }
+        Object parent = path.resolveParent(context);
         if (parent == null) {
             context
                 .getSource()
@@ -96,26 +145,44 @@ public class CommandFeedback {
                 );
             return 0;
         }
-        attribute.setAccessible(true);
-        boolean successfulChange = fieldConsumer.test(attribute);
+        // Setting a simple field to its current value doesn't need saving
+        FieldAccessor accessor = path.accessor();
+        boolean unchanged =
+            !Collection.class.isAssignableFrom(accessor.type()) &&
+            !Map.class.isAssignableFrom(accessor.type()) &&
+            Objects.equals(accessor.get(parent), value);
 
-        String option = StringUtils.difference(
-            config.getClass().getName(),
-            parent.getClass().getName()
-        );
+        // Collections are modified in place, keep their old content for listeners
+        ConfigListeners listeners = ConfigListeners.get(config);
+        boolean notify =
+            !unchanged &&
+            listeners != null &&
+            listeners.isListening(path.path(context));
+        Object oldValue = notify
+            ? ConfigListeners.copyOf(accessor.get(parent))
+            : null;
 
-        if (!option.isEmpty()) {
-            option = option.replaceAll("\\$", ".") + ".";
-
-            if (option.startsWith(".")) {
-                option = option.substring(1);
-            }
+        boolean successfulChange = fieldConsumer.test(parent);
+        if (successfulChange && notify) {
+            listeners.notify(
+                path.path(context),
+                oldValue,
+                accessor.get(parent)
+            );
         }
-        option += attribute.getName();
-        var optionText = Component.literal(option);
+
+        var optionText = Component.literal(path.displayName(context));
 
         if (successfulChange) {
-            config.save();
+            if (!unchanged) {
+                SaveScheduler.record(
+                    config,
+                    context.getSource().getServer(),
+                    path.location(context),
+                    accessor.get(parent),
+                    edit
+                );
+            }
             MutableComponent newValue = Component.literal(
                 value != null ? value.toString() : "null"
             ).withStyle(ChatFormatting.YELLOW);
@@ -180,23 +247,22 @@ public class CommandFeedback {
      */
     public static int editConfigBoolean(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         boolean value = BoolArgumentType.getBool(context, "value");
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             value,
-            field -> {
+            parent -> {
                 try {
-                    field.setBoolean(parent, value);
+                    accessor.setBoolean(parent, value);
                     return true;
-                } catch (IllegalAccessException e) {
+                } catch (RuntimeException e) {
                     getLogger(Config2Brigadier.MOD_ID).log(
                         System.Logger.Level.ERROR,
                         "Failed to set boolean field: " + e.getMessage()
@@ -212,23 +278,22 @@ public class CommandFeedback {
      */
     public static int editConfigInt(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         int value = IntegerArgumentType.getInteger(context, "value");
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             value,
-            field -> {
+            parent -> {
                 try {
-                    field.setInt(parent, value);
+                    accessor.setInt(parent, value);
                     return true;
-                } catch (IllegalAccessException e) {
+                } catch (RuntimeException e) {
                     getLogger(Config2Brigadier.MOD_ID).log(
                         System.Logger.Level.ERROR,
                         "Failed to set boolean field: " + e.getMessage()
@@ -244,23 +309,22 @@ public class CommandFeedback {
      */
     public static int editConfigFloat(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         float value = FloatArgumentType.getFloat(context, "value");
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             value,
-            field -> {
+            parent -> {
                 try {
-                    field.setFloat(parent, value);
+                    accessor.setFloat(parent, value);
                     return true;
-                } catch (IllegalAccessException e) {
+                } catch (RuntimeException e) {
                     getLogger(Config2Brigadier.MOD_ID).log(
                         System.Logger.Level.ERROR,
                         "Failed to set boolean field: " + e.getMessage()
@@ -276,23 +340,22 @@ public class CommandFeedback {
      */
     public static int editConfigDouble(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         double value = DoubleArgumentType.getDouble(context, "value");
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             value,
-            field -> {
+            parent -> {
                 try {
-                    field.setDouble(parent, value);
+                    accessor.setDouble(parent, value);
                     return true;
-                } catch (IllegalAccessException e) {
+                } catch (RuntimeException e) {
                     getLogger(Config2Brigadier.MOD_ID).log(
                         System.Logger.Level.ERROR,
                         "Failed to set boolean field: " + e.getMessage()
@@ -308,29 +371,28 @@ public class CommandFeedback {
      */
     public static int editConfigObject(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         String arg = StringArgumentType.getString(context, "value");
 
         // Fix for strings
-        if (attribute.getType().equals(String.class)) {
+        if (accessor.type().equals(String.class)) {
             arg = "\"" + arg + "\"";
         }
-        var value = GSON.fromJson(arg, attribute.getType());
+        var value = GSON.fromJson(arg, accessor.type());
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             value,
-            field -> {
+            parent -> {
                 try {
-                    field.set(parent, value);
+                    accessor.set(parent, value);
                     return true;
-                } catch (IllegalAccessException e) {
+                } catch (RuntimeException e) {
                     getLogger(Config2Brigadier.MOD_ID).log(
                         System.Logger.Level.ERROR,
                         "Failed to set boolean field: " + e.getMessage()
@@ -343,12 +405,12 @@ public class CommandFeedback {
 
     public static int editConfigMapSet(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         ParameterizedType mapType =
-            (ParameterizedType) attribute.getGenericType();
+            (ParameterizedType) accessor.genericType();
         Class<?> keyClass = (Class<?>) mapType.getActualTypeArguments()[0];
         Class<?> valClass = (Class<?>) mapType.getActualTypeArguments()[1];
 
@@ -357,21 +419,24 @@ public class CommandFeedback {
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             v,
-            field -> {
+            "config2brigadier.command.edit.success",
+            false,
+            ConfigJournal.EntryEdit.put(k, v),
+            parent -> {
                 try {
-                    Map<Object, Object> map = (Map<Object, Object>) field.get(
+                    Map<Object, Object> map = (Map<Object, Object>) accessor.get(
                         parent
                     );
                     try {
                         map.put(k, v);
+                        path.suggestions().add(map, k);
                     } catch (UnsupportedOperationException e) {
                         Map<Object, Object> newMap = new HashMap<>(map);
                         newMap.put(k, v);
-                        field.set(parent, newMap);
+                        accessor.set(parent, newMap);
                     }
                     return true;
                 } catch (Exception e) {
@@ -387,34 +452,35 @@ public class CommandFeedback {
 
     public static int editConfigMapRemove(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         ParameterizedType mapType =
-            (ParameterizedType) attribute.getGenericType();
+            (ParameterizedType) accessor.genericType();
         Class<?> keyClass = (Class<?>) mapType.getActualTypeArguments()[0];
         Object k = getArg(context, "key", keyClass);
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             k,
             "config2brigadier.command.edit.remove.success",
             true,
-            field -> {
+            ConfigJournal.EntryEdit.remove(k),
+            parent -> {
                 try {
-                    Map<Object, Object> map = (Map<Object, Object>) field.get(
+                    Map<Object, Object> map = (Map<Object, Object>) accessor.get(
                         parent
                     );
                     try {
                         map.remove(k);
+                        path.suggestions().remove(map, k);
                     } catch (UnsupportedOperationException e) {
                         Map<Object, Object> newMap = new HashMap<>(map);
                         newMap.remove(k);
-                        field.set(parent, newMap);
+                        accessor.set(parent, newMap);
                     }
                     return true;
                 } catch (Exception e) {
@@ -430,32 +496,32 @@ public class CommandFeedback {
 
     public static int editConfigListAdd(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         ParameterizedType listType =
-            (ParameterizedType) attribute.getGenericType();
+            (ParameterizedType) accessor.genericType();
         Class<?> valClass = (Class<?>) listType.getActualTypeArguments()[0];
         Object v = getArg(context, "value", valClass);
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             v,
             "config2brigadier.command.edit.add.success",
             true,
-            field -> {
+            parent -> {
                 try {
-                    List<Object> list = (List<Object>) field.get(parent);
+                    List<Object> list = (List<Object>) accessor.get(parent);
                     try {
                         list.add(v);
+                        SuggestionIndex.invalidate(list);
                     } catch (UnsupportedOperationException e) {
                         List<Object> newList = new ArrayList<>(list);
                         newList.add(v);
-                        field.set(parent, newList);
+                        accessor.set(parent, newList);
                     }
                     return true;
                 } catch (Exception e) {
@@ -471,32 +537,35 @@ public class CommandFeedback {
 
     public static int editConfigListSet(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         int index = IntegerArgumentType.getInteger(context, "index");
         ParameterizedType listType =
-            (ParameterizedType) attribute.getGenericType();
+            (ParameterizedType) accessor.genericType();
         Class<?> valClass = (Class<?>) listType.getActualTypeArguments()[0];
         Object v = getArg(context, "value", valClass);
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             v,
-            field -> {
+            "config2brigadier.command.edit.success",
+            false,
+            ConfigJournal.EntryEdit.set(index, v),
+            parent -> {
                 try {
-                    List<Object> list = (List<Object>) field.get(parent);
+                    List<Object> list = (List<Object>) accessor.get(parent);
                     if (index < 0 || index >= list.size()) return false;
                     try {
                         list.set(index, v);
+                        SuggestionIndex.invalidate(list);
                     } catch (UnsupportedOperationException e) {
                         List<Object> newList = new ArrayList<>(list);
                         newList.set(index, v);
-                        field.set(parent, newList);
+                        accessor.set(parent, newList);
                     }
                     return true;
                 } catch (Exception e) {
@@ -512,34 +581,34 @@ public class CommandFeedback {
 
     public static int editConfigListInsert(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         int index = IntegerArgumentType.getInteger(context, "index");
         ParameterizedType listType =
-            (ParameterizedType) attribute.getGenericType();
+            (ParameterizedType) accessor.genericType();
         Class<?> valClass = (Class<?>) listType.getActualTypeArguments()[0];
         Object v = getArg(context, "value", valClass);
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             v,
             "config2brigadier.command.edit.add.success",
             true,
-            field -> {
+            parent -> {
                 try {
-                    List<Object> list = (List<Object>) field.get(parent);
+                    List<Object> list = (List<Object>) accessor.get(parent);
                     if (index < 0 || index > list.size()) return false;
                     try {
                         list.add(index, v);
+                        SuggestionIndex.invalidate(list);
                     } catch (UnsupportedOperationException e) {
                         List<Object> newList = new ArrayList<>(list);
                         newList.add(index, v);
-                        field.set(parent, newList);
+                        accessor.set(parent, newList);
                     }
                     return true;
                 } catch (Exception e) {
@@ -555,32 +624,33 @@ public class CommandFeedback {
 
     public static int editConfigListRemove(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         ParameterizedType listType =
-            (ParameterizedType) attribute.getGenericType();
+            (ParameterizedType) accessor.genericType();
         Class<?> valClass = (Class<?>) listType.getActualTypeArguments()[0];
         Object v = getArg(context, "value", valClass);
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             v,
             "config2brigadier.command.edit.remove.success",
             true,
-            field -> {
+            parent -> {
                 try {
-                    List<Object> list = (List<Object>) field.get(parent);
+                    List<Object> list = (List<Object>) accessor.get(parent);
                     try {
-                        return list.remove(v);
+                        boolean removed = list.remove(v);
+                        SuggestionIndex.invalidate(list);
+                        return removed;
                     } catch (UnsupportedOperationException e) {
                         List<Object> newList = new ArrayList<>(list);
                         boolean removed = newList.remove(v);
-                        if (removed) field.set(parent, newList);
+                        if (removed) accessor.set(parent, newList);
                         return removed;
                     }
                 } catch (Exception e) {
@@ -596,32 +666,34 @@ public class CommandFeedback {
 
     public static int editConfigSetAdd(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         ParameterizedType setType =
-            (ParameterizedType) attribute.getGenericType();
+            (ParameterizedType) accessor.genericType();
         Class<?> valClass = (Class<?>) setType.getActualTypeArguments()[0];
         Object v = getArg(context, "value", valClass);
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             v,
             "config2brigadier.command.edit.add.success",
             true,
-            field -> {
+            ConfigJournal.EntryEdit.add(v),
+            parent -> {
                 try {
-                    Set<Object> set = (Set<Object>) field.get(parent);
+                    Set<Object> set = (Set<Object>) accessor.get(parent);
                     try {
-                        return set.add(v);
+                        boolean added = set.add(v);
+                        path.suggestions().add(set, v);
+                        return added;
                     } catch (UnsupportedOperationException e) {
                         Set<Object> newSet = new HashSet<>(set);
                         boolean added = newSet.add(v);
-                        if (added) field.set(parent, newSet);
+                        if (added) accessor.set(parent, newSet);
                         return added;
                     }
                 } catch (Exception e) {
@@ -637,32 +709,34 @@ public class CommandFeedback {
 
     public static int editConfigSetRemove(
         CommandContext<CommandSourceStack> context,
-        Object parent,
-        IBrigadierConfigurator config,
-        Field attribute
+        FieldPath path,
+        IBrigadierConfigurator config
     ) {
+        FieldAccessor accessor = path.accessor();
         ParameterizedType setType =
-            (ParameterizedType) attribute.getGenericType();
+            (ParameterizedType) accessor.genericType();
         Class<?> valClass = (Class<?>) setType.getActualTypeArguments()[0];
         Object v = getArg(context, "value", valClass);
 
         return editConfigAttribute(
             context,
-            parent,
+            path,
             config,
-            attribute,
             v,
             "config2brigadier.command.edit.remove.success",
             true,
-            field -> {
+            ConfigJournal.EntryEdit.removeValue(v),
+            parent -> {
                 try {
-                    Set<Object> set = (Set<Object>) field.get(parent);
+                    Set<Object> set = (Set<Object>) accessor.get(parent);
                     try {
-                        return set.remove(v);
+                        boolean removed = set.remove(v);
+                        path.suggestions().remove(set, v);
+                        return removed;
                     } catch (UnsupportedOperationException e) {
                         Set<Object> newSet = new HashSet<>(set);
                         boolean removed = newSet.remove(v);
-                        if (removed) field.set(parent, newSet);
+                        if (removed) accessor.set(parent, newSet);
                         return removed;
                     }
                 } catch (Exception e) {
@@ -675,4 +749,713 @@ public class CommandFeedback {
             }
         );
     }
+
+    /**
+     * Single field assignment of a batch edit.
+     * @param path dotted path of the field.
+     * @param location location of the field in config json.
+     * @param parent object containing the field.
+     * @param accessor accessor of the field.
+     * @param value new value.
+     */
+    record Assignment(
+        String path,
+        List<Object> location,
+        Object parent,
+        FieldAccessor accessor,
+        @Nullable Object value
+    ) {}
+
+    /**
+     * Edits the config field.
+     * @deprecated use {@link #editConfigAttribute(CommandContext, FieldPath, IBrigadierConfigurator, Object, Predicate)} instead.
+     */
+    @Deprecated
+    public static int editConfigAttribute(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute,
+        Object value,
+        Predicate<Field> fieldConsumer
+    ) {
+        return editConfigAttribute(
+            context,
+            parent,
+            config,
+            attribute,
+            value,
+            "config2brigadier.command.edit.success",
+            false,
+            fieldConsumer
+        );
+    }
+
+    /**
+     * Edits the config field with custom translation key.
+     * @deprecated use {@link #editConfigAttribute(CommandContext, FieldPath, IBrigadierConfigurator, Object, String, boolean, Predicate)} instead.
+     */
+    @Deprecated
+    public static int editConfigAttribute(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute,
+        Object value,
+        String translationKey,
+        boolean swapArgs,
+        Predicate<Field> fieldConsumer
+    ) {
+        return editConfigAttribute(
+            context,
+            legacyPath(parent, config, attribute),
+            config,
+            value,
+            translationKey,
+            swapArgs,
+            p -> {
+                attribute.setAccessible(true);
+                return fieldConsumer.test(attribute);
+            }
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigBoolean(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigBoolean(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigBoolean(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigInt(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigInt(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigInt(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigFloat(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigFloat(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigFloat(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigDouble(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigDouble(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigDouble(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigObject(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigObject(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigObject(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigMapSet(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigMapSet(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigMapSet(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigMapRemove(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigMapRemove(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigMapRemove(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigListAdd(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigListAdd(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigListAdd(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigListSet(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigListSet(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigListSet(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigListInsert(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigListInsert(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigListInsert(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigListRemove(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigListRemove(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigListRemove(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigSetAdd(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigSetAdd(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigSetAdd(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * @deprecated use {@link #editConfigSetRemove(CommandContext, FieldPath, IBrigadierConfigurator)} instead.
+     */
+    @Deprecated
+    public static int editConfigSetRemove(
+        CommandContext<CommandSourceStack> context,
+        Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        return editConfigSetRemove(
+            context,
+            legacyPath(parent, config, attribute),
+            config
+        );
+    }
+
+    /**
+     * Creates the path of a field for the deprecated methods taking its parent object.
+     * The place of a nested parent in the config isn't known, so it's saved with the whole config.
+     */
+    private static FieldPath legacyPath(
+        @Nullable Object parent,
+        IBrigadierConfigurator config,
+        Field attribute
+    ) {
+        FieldPath.Container container;
+        if (parent == null || parent == config) {
+            container = FieldPath.Container.root(context -> parent);
+        } else {
+            // Named after the parent class, as before
+            String option = StringUtils.difference(
+                config.getClass().getName(),
+                parent.getClass().getName()
+            ).replaceAll("\\$", ".");
+            if (option.startsWith(".")) {
+                option = option.substring(1);
+            }
+            container = FieldPath.Container.detached(parent, option);
+        }
+        // Permissions are up to the command calling these methods
+        return new FieldPath(container, FieldAccessor.of(attribute), null, "");
+    }
+
+    /**
+     * Sets multiple config fields from a json object at once, e.g.
+     * {@code {"show": false, "nested": {"message": "hi"}}} or {@code {"nested.message": "hi"}}.
+     * <p>
+     * All values are validated (field exists, isn't excluded, can be parsed and
+     * the source has permission to edit it) before any of them is set. If any assignment
+     * fails, none of the fields are changed. The config is saved once.
+     * @param context command context with the {@code values} argument.
+     * @param config the config object which fields are getting modified.
+     * @param configFields fields of the config.
+     * @param permission permission prefix of the edit command, e.g. {@code modid.config.edit}.
+     * @return 1 for success, 0 for error.
+     */
+    public static int editConfigBatch(
+        CommandContext<CommandSourceStack> context,
+        IBrigadierConfigurator config,
+        ConfigFieldList configFields,
+        String permission
+    ) {
+        CommandSourceStack source = context.getSource();
+        String batchPermission = permission.isEmpty()
+            ? ""
+            : permission + "." + IBrigadierConfigurator.BATCH_STR;
+        if (!PermissionCache.checkUncached(source, batchPermission)) {
+            sendBatchFailure(source, List.of("no permission"));
+            return 0;
+        }
+        JsonObject values;
+        try {
+            values = JsonParser.parseString(
+                StringArgumentType.getString(context, "values")
+            ).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            sendBatchFailure(source, List.of(e.getMessage()));
+            return 0;
+        }
+        return editConfigBatch(
+            source,
+            config,
+            configFields,
+            permission,
+            values
+        );
+    }
+
+    /**
+     * Sets the config option at the {@code path} argument to the {@code value} argument,
+     * as used by the compact {@code edit <path> [value]} command.
+     * The value is parsed as json, except for string options, which take the text as is
+     * unless it's quoted. Goes through the same checks as {@link #editConfigBatch}.
+     * @param context command context with the {@code path} and {@code value} arguments.
+     * @param config the config object which field is getting modified.
+     * @param configFields fields of the config.
+     * @param paths option paths of the config.
+     * @param permission permission prefix of the edit command, e.g. {@code modid.config.edit}.
+     * @return 1 for success, 0 for error.
+     */
+    public static int editConfigPath(
+        CommandContext<CommandSourceStack> context,
+        IBrigadierConfigurator config,
+        ConfigFieldList configFields,
+        PathTrie paths,
+        String permission
+    ) {
+        CommandSourceStack source = context.getSource();
+        String path = StringArgumentType.getString(context, "path");
+        String text = StringArgumentType.getString(context, "value");
+
+        PathTrie.Resolved option = paths.resolve(config, path);
+        if (option == null) {
+            sendBatchFailure(source, List.of(path + ": unknown option"));
+            return 0;
+        }
+        JsonObject values = new JsonObject();
+        try {
+            boolean isString =
+                FieldAccessor.of(option.field()).type() == String.class;
+            values.add(
+                path,
+                isString && !text.startsWith("\"")
+                    ? new JsonPrimitive(text)
+                    : JsonParser.parseString(text)
+            );
+        } catch (JsonParseException e) {
+            sendBatchFailure(source, List.of(path + ": " + e.getMessage()));
+            return 0;
+        }
+        return editConfigBatch(
+            source,
+            config,
+            configFields,
+            permission,
+            values
+        );
+    }
+
+    private static int editConfigBatch(
+        CommandSourceStack source,
+        IBrigadierConfigurator config,
+        ConfigFieldList configFields,
+        String permission,
+        JsonObject values
+    ) {
+        Batch batch = applyBatch(
+            config,
+            configFields,
+            permission,
+            values,
+            fieldPermission ->
+                PermissionCache.checkUncached(source, fieldPermission)
+        );
+        if (!batch.errors().isEmpty()) {
+            sendBatchFailure(source, batch.errors());
+            return 0;
+        }
+        List<Assignment> assignments = batch.assignments();
+        Object[] oldValues = batch.oldValues();
+
+        ConfigListeners listeners = ConfigListeners.get(config);
+        // Configs that aren't scheduled are saved directly on each record
+        boolean recordEach = SaveScheduler.isScheduled(config);
+        List<String> changed = new ArrayList<>();
+        for (int i = 0; i < assignments.size(); ++i) {
+            Assignment assignment = assignments.get(i);
+            if (Objects.equals(oldValues[i], assignment.value())) {
+                continue;
+            }
+            changed.add(assignment.path());
+            if (recordEach) {
+                SaveScheduler.record(
+                    config,
+                    source.getServer(),
+                    assignment.location(),
+                    assignment.value(),
+                    null
+                );
+            }
+            if (listeners != null) {
+                listeners.notify(
+                    assignment.path(),
+                    oldValues[i],
+                    assignment.value()
+                );
+            }
+        }
+        if (!recordEach && !changed.isEmpty()) {
+            SaveScheduler.request(config, source.getServer());
+        }
+
+        source.sendSuccess(
+            () ->
+                Component.translatable(
+                    "config2brigadier.command.edit.batch.success",
+                    changed.size(),
+                    Component.literal(String.join(", ", changed)).withStyle(
+                        ChatFormatting.YELLOW
+                    )
+                ).withStyle(ChatFormatting.GREEN),
+            false
+        );
+        return 1;
+    }
+
+    /**
+     * Result of a batch edit.
+     * @param assignments applied assignments, empty if there were errors.
+     * @param oldValues values before the assignments.
+     * @param errors errors of the batch, in which case nothing was applied.
+     */
+    record Batch(
+        List<Assignment> assignments,
+        Object[] oldValues,
+        List<String> errors
+    ) {}
+
+    /**
+     * Resolves and parses all assignments of the batch edit, then applies them.
+     * If any of them is invalid or cannot be applied, the config is left unchanged.
+     * @param config config object to edit.
+     * @param configFields fields of the config.
+     * @param permission permission prefix of the edit command.
+     * @param values option paths and their json values.
+     * @param permitted whether the edit permission of an option is granted.
+     * @return applied batch or its errors.
+     */
+    static Batch applyBatch(
+        Object config,
+        ConfigFieldList configFields,
+        String permission,
+        JsonObject values,
+        Predicate<String> permitted
+    ) {
+        List<Assignment> assignments = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        collectAssignments(
+            permitted,
+            configFields,
+            config,
+            "",
+            List.of(),
+            permission,
+            values,
+            assignments,
+            errors
+        );
+
+        if (errors.isEmpty() && assignments.isEmpty()) {
+            errors.add("no options given");
+        }
+        Object[] oldValues = new Object[assignments.size()];
+        if (errors.isEmpty()) {
+            String error = applyAll(assignments, oldValues);
+            if (error != null) {
+                errors.add(error);
+            }
+        }
+        return errors.isEmpty()
+            ? new Batch(assignments, oldValues, List.of())
+            : new Batch(List.of(), new Object[0], errors);
+    }
+
+    /**
+     * Applies all assignments or none of them.
+     * If an assignment fails, the ones before it are rolled back.
+     * @param assignments assignments to apply.
+     * @param oldValues array the values before the assignments are stored to.
+     * @return error of the failed assignment, null if all were applied.
+     */
+    @Nullable
+    static String applyAll(List<Assignment> assignments, Object[] oldValues) {
+        for (int i = 0; i < assignments.size(); ++i) {
+            Assignment assignment = assignments.get(i);
+            try {
+                oldValues[i] = assignment.accessor().get(assignment.parent());
+                assignment
+                    .accessor()
+                    .set(assignment.parent(), assignment.value());
+            } catch (RuntimeException e) {
+                for (int j = i - 1; j >= 0; --j) {
+                    Assignment applied = assignments.get(j);
+                    applied.accessor().set(applied.parent(), oldValues[j]);
+                }
+                return assignment.path() + ": " + e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves and parses the assignments of the json object.
+     */
+    private static void collectAssignments(
+        Predicate<String> permitted,
+        ConfigFieldList fields,
+        Object parent,
+        String prefix,
+        List<Object> location,
+        String permission,
+        JsonObject values,
+        List<Assignment> assignments,
+        List<String> errors
+    ) {
+        for (Map.Entry<String, JsonElement> entry : values.entrySet()) {
+            String key = entry.getKey();
+            JsonElement value = entry.getValue();
+
+            // Dotted keys are the same as nested objects
+            int dot = key.indexOf('.');
+            String name = dot < 0 ? key : key.substring(0, dot);
+            if (dot >= 0) {
+                JsonObject rest = new JsonObject();
+                rest.add(key.substring(dot + 1), value);
+                value = rest;
+            }
+            String path = prefix + name;
+            String fieldPermission = permission.isEmpty()
+                ? ""
+                : permission + "." + name;
+
+            ConfigFieldList nested = findNested(fields, name);
+            if (nested != null && value.isJsonObject()) {
+                Object child = FieldAccessor.of(nested.parentField()).get(
+                    parent
+                );
+                if (child == null) {
+                    errors.add(path + ": option is null");
+                    continue;
+                }
+                collectAssignments(
+                    permitted,
+                    nested,
+                    child,
+                    path + ".",
+                    append(location, nested.parentField()),
+                    fieldPermission,
+                    value.getAsJsonObject(),
+                    assignments,
+                    errors
+                );
+                continue;
+            }
+
+            Field field = findField(fields, name);
+            if (field == null || dot >= 0) {
+                errors.add(path + ": unknown option");
+                continue;
+            }
+            if (!permitted.test(fieldPermission)) {
+                errors.add(path + ": no permission");
+                continue;
+            }
+
+            try {
+                FieldAccessor accessor = FieldAccessor.of(field);
+                Object parsed = GSON.fromJson(value, accessor.genericType());
+                if (parsed == null && accessor.type().isPrimitive()) {
+                    errors.add(path + ": value cannot be null");
+                    continue;
+                }
+                assignments.add(
+                    new Assignment(
+                        path,
+                        append(location, field),
+                        parent,
+                        accessor,
+                        parsed
+                    )
+                );
+            } catch (JsonParseException | IllegalArgumentException e) {
+                errors.add(path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets the json location of the field in the object at given location.
+     */
+    private static List<Object> append(List<Object> location, Field field) {
+        List<Object> fieldLocation = new ArrayList<>(location);
+        fieldLocation.add(ConfigJournal.jsonName(field));
+        return fieldLocation;
+    }
+
+    @Nullable
+    private static ConfigFieldList findNested(
+        ConfigFieldList fields,
+        String name
+    ) {
+        for (ConfigFieldList nested : fields.nestedFields()) {
+            Field parentField = nested.parentField();
+            if (parentField != null && parentField.getName().equals(name)) {
+                return nested;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Field findField(ConfigFieldList fields, String name) {
+        List<List<Field>> buckets = List.of(
+            fields.booleans(),
+            fields.integers(),
+            fields.floats(),
+            fields.doubles(),
+            fields.maps(),
+            fields.lists(),
+            fields.sets(),
+            fields.objects()
+        );
+        for (List<Field> bucket : buckets) {
+            for (Field field : bucket) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void sendBatchFailure(
+        CommandSourceStack source,
+        List<String> errors
+    ) {
+        source.sendFailure(
+            Component.translatable(
+                "config2brigadier.command.edit.batch.failed",
+                String.join("; ", errors)
+            ).withStyle(ChatFormatting.RED)
+        );
+    }
 }
@@ -0,0 +1,573 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.context.ParsedCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import net.minecraft.commands.CommandSourceStack;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.io.ConfigJournal;
+import org.samo_lego.config2brigadier.common.util.FieldAccessor;
+
+/**
+ * Compiled path to a config field, built once when the edit command is generated.
+ * Holds the composed accessor chain to the object containing the field, the display name,
+ * the permission and the prefix for clickable commands, so the edit, info
+ * and suggestion paths don't need to work them out on each execution.
+ * <p>
+ * Paths in shared subtrees (see {@link Container#shared(Map)}) are compiled relative
+ * to the subtree and completed with the junction the command was parsed through.
+ */
+public final class FieldPath {
+
+    private final Container container;
+    private final FieldAccessor accessor;
+    @Nullable
+    private final String permission;
+    private final String commandPrefix;
+    @Nullable
+    private final String path;
+    private final String jsonName;
+    @Nullable
+    private final String displayName;
+    private final SuggestionIndex suggestions = new SuggestionIndex();
+
+    /**
+     * Creates a new field path.
+     * @param container container of the field.
+     * @param accessor accessor of the field.
+     * @param permission permission required to edit the field, empty if only owners (level 4) may edit it,
+     *                   null if no permission check is done (e.g. for fields of a command built by the mod itself).
+     *                   Relative (e.g. {@code .message}) in shared subtrees.
+     * @param commandPrefix command (without leading slash) that edits this field, used for clickable actions.
+     *                      Relative (e.g. {@code " message"}) in shared subtrees.
+     */
+    public FieldPath(
+        Container container,
+        FieldAccessor accessor,
+        @Nullable String permission,
+        String commandPrefix
+    ) {
+        this.container = container;
+        this.accessor = accessor;
+        this.permission = permission;
+        this.commandPrefix = commandPrefix;
+        // Paths in shared subtrees depend on the junction
+        this.path = container.isShared()
+            ? null
+            : container.path(null) + accessor.name();
+        this.jsonName = ConfigJournal.jsonName(accessor.field());
+        // Paths without collection entries have a static name
+        this.displayName = container.isStatic()
+            ? container.prefix(null) + accessor.name()
+            : null;
+    }
+
+    public Container container() {
+        return this.container;
+    }
+
+    public FieldAccessor accessor() {
+        return this.accessor;
+    }
+
+    public Field field() {
+        return this.accessor.field();
+    }
+
+    /**
+     * Gets the permission as compiled, relative in shared subtrees.
+     * @see #permission(CommandContext)
+     */
+    @Nullable
+    public String permission() {
+        return this.permission;
+    }
+
+    /**
+     * Gets the permission required to edit the field.
+     * @param context command context, used to find the junction of shared subtrees.
+     * @return permission, empty if only owners may edit the field (also if it's in a shared subtree
+     *         whose junction isn't parsed), null if no permission check is done.
+     */
+    @Nullable
+    public String permission(CommandContext<CommandSourceStack> context) {
+        return this.permission != null
+            ? this.container.absolute(context, this.permission, true)
+            : null;
+    }
+
+    /**
+     * Gets the command (without leading slash) that edits this field.
+     * @param context command context, used to find the junction of shared subtrees.
+     * @return command prefix for clickable actions.
+     */
+    public String commandPrefix(CommandContext<CommandSourceStack> context) {
+        return this.container.absolute(context, this.commandPrefix, false);
+    }
+
+    /**
+     * Whether the field is in a shared subtree.
+     * Nodes of shared subtrees are used for several places, so they don't have
+     * permission requirements, see {@link #isPermitted(CommandContext)}.
+     */
+    public boolean isShared() {
+        return this.container.isShared();
+    }
+
+    /**
+     * Checks the permission of the field with the cached decisions of the source,
+     * e.g. for suggestions. Fields in shared subtrees are only checked this way,
+     * as their nodes have no requirement.
+     * @param context command context.
+     * @return whether the source may use the field.
+     */
+    public boolean isPermitted(CommandContext<CommandSourceStack> context) {
+        String permission = this.permission(context);
+        return (
+            permission == null ||
+            PermissionCache.check(context.getSource(), permission)
+        );
+    }
+
+    /**
+     * Checks the permission of the field without the cache, when the field is edited or shown,
+     * so permission changes apply right away even if the command tree of the source is outdated.
+     * @param context command context.
+     * @return whether the source may use the field.
+     */
+    public boolean isPermittedUncached(
+        CommandContext<CommandSourceStack> context
+    ) {
+        String permission = this.permission(context);
+        return (
+            permission == null ||
+            PermissionCache.checkUncached(context.getSource(), permission)
+        );
+    }
+
+    /**
+     * Gets the index used to suggest map keys, list or set values of this field.
+     */
+    public SuggestionIndex suggestions() {
+        return this.suggestions;
+    }
+
+    /**
+     * Gets the dotted path of the field without entry keys, e.g. {@code nestedMap.message},
+     * as used by {@link org.samo_lego.config2brigadier.common.ConfigChangeListener}s.
+     * @param context command context, used to find the junction of shared subtrees.
+     */
+    public String path(CommandContext<CommandSourceStack> context) {
+        if (this.path != null) {
+            return this.path;
+        }
+        return this.container.path(context) + this.accessor.name();
+    }
+
+    /**
+     * Gets the location of the field in config json, e.g. {@code ["nestedMap", "key", "message"]}.
+     * @param context command context (used for entry keys / indexes).
+     * @return object keys and array indexes leading to the field, null if an entry argument is missing.
+     */
+    @Nullable
+    public List<Object> location(CommandContext<CommandSourceStack> context) {
+        List<Object> location = new ArrayList<>();
+        if (!this.container.location(context, location)) {
+            return null;
+        }
+        location.add(this.jsonName);
+        return location;
+    }
+
+    /**
+     * Gets the object that contains this field.
+     * @param context command context (used for entry keys / indexes).
+     * @return parent object or null if it cannot be resolved (e.g. invalid key).
+     */
+    @Nullable
+    public Object resolveParent(CommandContext<CommandSourceStack> context) {
+        return this.container.resolve(context);
+    }
+
+    /**
+     * Gets the current value of this field.
+     * @param context command context (used for entry keys / indexes).
+     * @return field value or null if parent cannot be resolved.
+     */
+    @Nullable
+    public Object get(CommandContext<CommandSourceStack> context) {
+        Object parent = this.resolveParent(context);
+        return parent != null ? this.accessor.get(parent) : null;
+    }
+
+    /**
+     * Gets the dotted name of the field, e.g. {@code nested.message}
+     * or {@code nestedMap[key].message} for collection entries.
+     * @param context command context, used to fill in entry keys.
+     * @return display name of the field.
+     */
+    public String displayName(CommandContext<CommandSourceStack> context) {
+        if (this.displayName != null) {
+            return this.displayName;
+        }
+        return this.container.prefix(context) + this.accessor.name();
+    }
+
+    /**
+     * Place a shared subtree is used at, e.g. the {@code key} argument of a map entry.
+     * @param container container of the place.
+     * @param permission permission of the place, relative if it's in a shared subtree itself.
+     * @param commandPrefix command of the place, relative if it's in a shared subtree itself.
+     */
+    public record Junction(
+        Container container,
+        String permission,
+        String commandPrefix
+    ) {}
+
+    /**
+     * Object that contains config fields: the config itself,
+     * a nested object, an entry of a map / list or the root of a shared subtree.
+     * @param parent container of the container, null for root.
+     * @param name name of the field holding this container, empty for root
+     *             (except for roots made with {@link #detached(Object, String)}).
+     * @param jsonName serialized name of the field holding this container, empty for root.
+     * @param entryArgument name of the argument selecting the entry, null if this isn't an entry.
+     * @param resolver composed resolver for the container object.
+     * @param junctions places of the shared subtree by their node, null if this isn't a shared subtree root.
+     */
+    public record Container(
+        @Nullable Container parent,
+        String name,
+        String jsonName,
+        @Nullable String entryArgument,
+        Function<CommandContext<CommandSourceStack>, Object> resolver,
+        @Nullable Map<CommandNode<CommandSourceStack>, Junction> junctions
+    ) {
+        /**
+         * Creates root container.
+         * @param resolver provider for the root object.
+         * @return root container.
+         */
+        public static Container root(
+            Function<CommandContext<CommandSourceStack>, Object> resolver
+        ) {
+            return new Container(null, "", "", null, resolver, null);
+        }
+
+        /**
+         * Creates a container for an object whose place in the config isn't known.
+         * Edits of its fields have no location, so the whole config is saved.
+         * @param object the object.
+         * @param name dotted name shown for its fields.
+         * @return detached container.
+         */
+        public static Container detached(Object object, String name) {
+            return new Container(null, name, "", null, context -> object, null);
+        }
+
+        /**
+         * Creates the root container of a subtree that is shared by several places,
+         * e.g. entries of maps with the same value class. It stands for the container
+         * of the junction the command was parsed through.
+         * @param junctions places of the subtree by their node, filled in as the subtree is used.
+         * @return shared subtree root container.
+         */
+        public static Container shared(
+            Map<CommandNode<CommandSourceStack>, Junction> junctions
+        ) {
+            return new Container(
+                null,
+                "",
+                "",
+                null,
+                context -> {
+                    Junction junction = find(junctions, context);
+                    return junction != null
+                        ? junction.container().resolve(context)
+                        : null;
+                },
+                junctions
+            );
+        }
+
+        /**
+         * Creates a container for a nested object held by given field.
+         * @param accessor accessor of the field holding the nested object.
+         * @return nested container.
+         */
+        public Container nested(FieldAccessor accessor) {
+            return new Container(
+                this,
+                accessor.name(),
+                jsonName(accessor),
+                null,
+                context -> {
+                    Object parent = this.resolve(context);
+                    return parent != null ? accessor.get(parent) : null;
+                },
+                null
+            );
+        }
+
+        /**
+         * Creates a container for map entry selected by {@code key} argument.
+         * @param accessor accessor of the map field.
+         * @param keyClass class of the map keys.
+         * @return map entry container.
+         */
+        public Container mapEntry(FieldAccessor accessor, Class<?> keyClass) {
+            return new Container(
+                this,
+                accessor.name(),
+                jsonName(accessor),
+                "key",
+                context -> {
+                    try {
+                        Object parent = this.resolve(context);
+                        if (parent == null) return null;
+                        Map<?, ?> map = (Map<?, ?>) accessor.get(parent);
+                        if (map == null) return null;
+                        return map.get(
+                            CommandFeedback.getArg(context, "key", keyClass)
+                        );
+                    } catch (Exception e) {
+                        return null;
+                    }
+                },
+                null
+            );
+        }
+
+        /**
+         * Creates a container for list entry selected by {@code index} argument.
+         * @param accessor accessor of the list field.
+         * @return list entry container.
+         */
+        public Container listEntry(FieldAccessor accessor) {
+            return new Container(
+                this,
+                accessor.name(),
+                jsonName(accessor),
+                "index",
+                context -> {
+                    try {
+                        Object parent = this.resolve(context);
+                        if (parent == null) return null;
+                        List<?> list = (List<?>) accessor.get(parent);
+                        if (list == null) return null;
+                        return list.get(
+                            IntegerArgumentType.getInteger(context, "index")
+                        );
+                    } catch (Exception e) {
+                        return null;
+                    }
+                },
+                null
+            );
+        }
+
+        /**
+         * Gets the container object.
+         * @param context command context.
+         * @return container object or null if it cannot be resolved.
+         */
+        @Nullable
+        public Object resolve(CommandContext<CommandSourceStack> context) {
+            return this.resolver.apply(context);
+        }
+
+        /**
+         * Whether the path to this container doesn't contain any collection entries.
+         */
+        private boolean isStatic() {
+            return (
+                this.entryArgument == null &&
+                this.junctions == null &&
+                (this.parent == null || this.parent.isStatic())
+            );
+        }
+
+        /**
+         * Whether this container is in a shared subtree.
+         */
+        private boolean isShared() {
+            return (
+                this.junctions != null ||
+                (this.parent != null && this.parent.isShared())
+            );
+        }
+
+        /**
+         * Finds the junction the command was parsed through, the last one
+         * in case the subtree is used in itself.
+         */
+        @Nullable
+        private static Junction find(
+            Map<CommandNode<CommandSourceStack>, Junction> junctions,
+            @Nullable CommandContext<CommandSourceStack> context
+        ) {
+            if (context == null) {
+                return null;
+            }
+            List<ParsedCommandNode<CommandSourceStack>> nodes =
+                context.getNodes();
+            for (int i = nodes.size() - 1; i >= 0; --i) {
+                Junction junction = junctions.get(nodes.get(i).getNode());
+                if (junction != null) {
+                    return junction;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets the junction of the shared subtree this root container stands for.
+         * @return junction, null if this isn't a shared subtree root or the junction isn't parsed.
+         */
+        @Nullable
+        private Junction junction(
+            @Nullable CommandContext<CommandSourceStack> context
+        ) {
+            return this.junctions != null ? find(this.junctions, context) : null;
+        }
+
+        /**
+         * Prepends the permission or command of the junction to the relative one
+         * of a field in shared subtree, returns it as is for other fields.
+         */
+        private String absolute(
+            CommandContext<CommandSourceStack> context,
+            String value,
+            boolean permission
+        ) {
+            if (this.parent != null) {
+                return this.parent.absolute(context, value, permission);
+            }
+            if (this.junctions == null) {
+                return value;
+            }
+            Junction junction = this.junction(context);
+            if (junction == null) {
+                // Only owners can use fields that cannot be placed
+                return permission ? "" : value;
+            }
+            String prefix = junction
+                .container()
+                .absolute(
+                    context,
+                    permission
+                        ? junction.permission()
+                        : junction.commandPrefix(),
+                    permission
+                );
+            if (permission && prefix.isEmpty()) {
+                // No permission checks
+                return "";
+            }
+            return prefix + value;
+        }
+
+        private static String jsonName(FieldAccessor accessor) {
+            return ConfigJournal.jsonName(accessor.field());
+        }
+
+        /**
+         * Adds the location of this container in config json to the list.
+         * @return false if an entry argument is missing.
+         */
+        private boolean location(
+            CommandContext<CommandSourceStack> context,
+            List<Object> location
+        ) {
+            if (this.parent == null) {
+                if (this.junctions == null) {
+                    // Detached containers are named
+                    return this.name.isEmpty();
+                }
+                Junction junction = this.junction(context);
+                return (
+                    junction != null &&
+                    junction.container().location(context, location)
+                );
+            }
+            if (!this.parent.location(context, location)) {
+                return false;
+            }
+            location.add(this.jsonName);
+            if (this.entryArgument != null) {
+                Object entry;
+                try {
+                    entry = context.getArgument(
+                        this.entryArgument,
+                        Object.class
+                    );
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+                // Map keys are serialized as json object keys
+                location.add(
+                    "index".equals(this.entryArgument)
+                        ? entry
+                        : entry instanceof Enum<?> constant
+                            ? constant.name()
+                            : String.valueOf(entry)
+                );
+            }
+            return true;
+        }
+
+        /**
+         * Gets the dotted prefix for fields in this container, without entry keys.
+         */
+        private String path(
+            @Nullable CommandContext<CommandSourceStack> context
+        ) {
+            if (this.parent == null) {
+                Junction junction = this.junction(context);
+                if (junction != null) {
+                    return junction.container().path(context);
+                }
+                return this.name.isEmpty() ? "" : this.name + ".";
+            }
+            return this.parent.path(context) + this.name + ".";
+        }
+
+        /**
+         * Gets the dotted prefix for fields in this container.
+         */
+        private String prefix(
+            @Nullable CommandContext<CommandSourceStack> context
+        ) {
+            if (this.parent == null) {
+                Junction junction = this.junction(context);
+                if (junction != null) {
+                    return junction.container().prefix(context);
+                }
+                return this.name.isEmpty() ? "" : this.name + ".";
+            }
+            String segment = this.name;
+            if (this.entryArgument != null) {
+                Object entry = null;
+                try {
+                    if (context != null) {
+                        entry = context.getArgument(
+                            this.entryArgument,
+                            Object.class
+                        );
+                    }
+                } catch (IllegalArgumentException ignored) {
+                    // Argument not present
+                }
+                segment += "[" + (entry != null ? entry : "?") + "]";
+            }
+            return this.parent.prefix(context) + segment + ".";
+        }
+    }
+}
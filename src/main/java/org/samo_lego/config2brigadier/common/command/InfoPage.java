@@ -0,0 +1,175 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.HoverEvent;
+import net.minecraft.network.chat.MutableComponent;
+
+/**
+ * Page of map, list or set entries shown in the option info.
+ * <p>
+ * Only the entries on the page are rendered (and serialized), and rendering stops
+ * once the message gets too long, so large collections don't end up in huge chat packets.
+ */
+public final class InfoPage {
+
+    /**
+     * Max number of entries on a page.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+    /**
+     * Max length of a single rendered value, longer ones are shortened.
+     */
+    public static final int MAX_VALUE_LENGTH = 256;
+    /**
+     * Max total length of the rendered entries in a single message.
+     */
+    public static final int MAX_MESSAGE_LENGTH = 8192;
+
+    private final int page;
+    private final int pageSize;
+    private final int pages;
+    private final int total;
+    private int length;
+    private boolean full;
+
+    private InfoPage(int page, int pageSize, int total) {
+        this.pageSize = pageSize;
+        this.total = total;
+        this.pages = Math.max(1, Math.ceilDiv(total, pageSize));
+        this.page = Math.min(page, this.pages);
+    }
+
+    /**
+     * Gets the page selected by {@code page} and {@code pageSize} arguments.
+     * @param context command context.
+     * @param total number of entries.
+     * @param defaultPageSize page size if the argument is missing.
+     * @return selected page, the first one if the argument is missing.
+     */
+    public static InfoPage of(
+        CommandContext<CommandSourceStack> context,
+        int total,
+        int defaultPageSize
+    ) {
+        int page = intArg(context, "page", 1);
+        int pageSize = intArg(context, "pageSize", defaultPageSize);
+        return new InfoPage(
+            Math.max(1, page),
+            Math.clamp(pageSize, 1, MAX_PAGE_SIZE),
+            total
+        );
+    }
+
+    private static int intArg(
+        CommandContext<CommandSourceStack> context,
+        String name,
+        int defaultValue
+    ) {
+        try {
+            return IntegerArgumentType.getInteger(context, name);
+        } catch (IllegalArgumentException e) {
+            // Argument not present
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Index of the first entry on the page.
+     */
+    public int from() {
+        return (this.page - 1) * this.pageSize;
+    }
+
+    /**
+     * Index after the last entry on the page.
+     */
+    public int to() {
+        return Math.min(this.total, this.from() + this.pageSize);
+    }
+
+    /**
+     * Reserves space in the message for a rendered entry.
+     * @param text text of the entry.
+     * @return false if the message is full and the entry should be left out.
+     */
+    public boolean fits(String text) {
+        if (this.full || this.length + text.length() > MAX_MESSAGE_LENGTH) {
+            this.full = true;
+            return false;
+        }
+        this.length += text.length();
+        return true;
+    }
+
+    /**
+     * Shortens the value to {@link #MAX_VALUE_LENGTH}.
+     * @param value rendered value.
+     * @return value, or its start followed by "..." if it's too long.
+     */
+    public static String shorten(String value) {
+        return value.length() > MAX_VALUE_LENGTH
+            ? value.substring(0, MAX_VALUE_LENGTH) + "..."
+            : value;
+    }
+
+    /**
+     * Appends the page navigation, e.g. {@code [<] Page 2 of 5 [>]}, to the message
+     * if the entries don't fit on a single page or the message.
+     * @param message message to append to.
+     * @param commandPrefix command of the option, used for clickable navigation.
+     */
+    public void appendNavigation(
+        MutableComponent message,
+        String commandPrefix
+    ) {
+        if (this.full) {
+            message
+                .append("\n")
+                .append(
+                    Component.translatable(
+                        "config2brigadier.command.edit.page.truncated"
+                    ).withStyle(ChatFormatting.GRAY)
+                );
+        }
+        if (this.pages > 1) {
+            message
+                .append("\n")
+                .append(this.pageButton(commandPrefix, "[<]", this.page - 1))
+                .append(
+                    Component.translatable(
+                        "config2brigadier.command.edit.page",
+                        this.page,
+                        this.pages,
+                        this.total
+                    ).withStyle(ChatFormatting.GRAY)
+                )
+                .append(this.pageButton(commandPrefix, "[>]", this.page + 1));
+        }
+    }
+
+    private MutableComponent pageButton(
+        String commandPrefix,
+        String text,
+        int page
+    ) {
+        if (page < 1 || page > this.pages) {
+            return Component.literal(text).withStyle(ChatFormatting.DARK_GRAY);
+        }
+        String command =
+            "/" + commandPrefix + " page " + page + " " + this.pageSize;
+        return Component.literal(text)
+            .withStyle(ChatFormatting.AQUA)
+            .withStyle(style ->
+                style
+                    .withClickEvent(new ClickEvent.RunCommand(command))
+                    .withHoverEvent(
+                        new HoverEvent.ShowText(Component.literal(command))
+                    )
+            );
+    }
+}
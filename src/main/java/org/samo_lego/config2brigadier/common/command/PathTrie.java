@@ -0,0 +1,144 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.util.ConfigFieldList;
+import org.samo_lego.config2brigadier.common.util.FieldAccessor;
+
+/**
+ * Prefix tree of the dotted option paths of a config, e.g. {@code nested.message},
+ * used by the compact {@code edit <path> [value]} command to complete and resolve paths.
+ * Built once from the {@link ConfigFieldList} when the command is generated.
+ */
+public final class PathTrie {
+
+    private final NavigableMap<String, PathTrie> children = new TreeMap<>();
+    @Nullable
+    private final Field field;
+
+    private PathTrie(@Nullable Field field) {
+        this.field = field;
+    }
+
+    /**
+     * Option resolved from its path.
+     * @param parent object containing the option.
+     * @param field field of the option.
+     */
+    public record Resolved(Object parent, Field field) {}
+
+    /**
+     * Creates the tree of all options of the config.
+     * @param fields fields of the config.
+     * @return path tree.
+     */
+    public static PathTrie of(ConfigFieldList fields) {
+        PathTrie root = new PathTrie(null);
+        root.addAll(fields);
+        return root;
+    }
+
+    private void addAll(ConfigFieldList fields) {
+        List<List<Field>> buckets = List.of(
+            fields.booleans(),
+            fields.integers(),
+            fields.floats(),
+            fields.doubles(),
+            fields.maps(),
+            fields.lists(),
+            fields.sets(),
+            fields.objects()
+        );
+        for (List<Field> bucket : buckets) {
+            for (Field field : bucket) {
+                this.children.put(field.getName(), new PathTrie(field));
+            }
+        }
+        for (ConfigFieldList nested : fields.nestedFields()) {
+            PathTrie child = new PathTrie(nested.parentField());
+            child.addAll(nested);
+            this.children.put(nested.parentField().getName(), child);
+        }
+    }
+
+    /**
+     * Suggests the options in the typed container that start with the typed name.
+     * @param builder suggestions builder.
+     * @param limit max number of suggestions.
+     * @param permitted whether the option at the dotted path can be suggested,
+     *                  e.g. if the source may edit it.
+     */
+    public void suggest(
+        SuggestionsBuilder builder,
+        int limit,
+        Predicate<String> permitted
+    ) {
+        String typed = builder.getRemaining();
+        int dot = typed.lastIndexOf('.');
+        String container = dot < 0 ? "" : typed.substring(0, dot + 1);
+        String name = typed.substring(dot + 1);
+
+        PathTrie node = dot < 0 ? this : this.find(typed.substring(0, dot));
+        if (node == null) {
+            return;
+        }
+        int count = 0;
+        for (String child : node.children
+            .subMap(name, true, name + Character.MAX_VALUE, false)
+            .keySet()) {
+            String path = container + child;
+            if (!permitted.test(path)) {
+                continue;
+            }
+            if (count++ >= limit) {
+                break;
+            }
+            builder.suggest(path);
+        }
+    }
+
+    /**
+     * Resolves the option at the path.
+     * @param root config object.
+     * @param path dotted path of the option.
+     * @return resolved option or null if the path doesn't exist
+     *         or one of the objects on the way is null.
+     */
+    @Nullable
+    public Resolved resolve(Object root, String path) {
+        PathTrie node = this;
+        Object parent = root;
+        String[] names = path.split("\\.", -1);
+        for (int i = 0; i < names.length; ++i) {
+            if (i > 0) {
+                // Step into the nested object
+                parent = FieldAccessor.of(node.field).get(parent);
+                if (parent == null) {
+                    return null;
+                }
+            }
+            node = node.children.get(names[i]);
+            if (node == null) {
+                return null;
+            }
+        }
+        return new Resolved(parent, node.field);
+    }
+
+    @Nullable
+    private PathTrie find(String path) {
+        PathTrie node = this;
+        for (String name : path.split("\\.", -1)) {
+            node = node.children.get(name);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+}
@@ -0,0 +1,208 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import me.lucko.fabric.api.permissions.v0.Permissions;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.permissions.Permission.HasCommandLevel;
+import net.minecraft.server.permissions.PermissionLevel;
+import net.minecraft.server.permissions.PermissionSet;
+
+/**
+ * Caches the permission decisions of generated command nodes per player.
+ * <p>
+ * Node requirements are checked for every node whenever the command tree of a player
+ * is built and on every parse, which adds up to a lot of permission lookups for large configs.
+ * Decisions of a player are dropped when they log in again, when their permission level changes
+ * and after {@link #EXPIRY_MILLIS}. Permission backends (or mods using them) can drop them right
+ * away with {@link #invalidate(MinecraftServer, UUID)}.
+ * <p>
+ * Node requirements and suggestions use the cache, while edit and info commands check
+ * the permission again with {@link #checkUncached(CommandSourceStack, String)} when they're executed.
+ */
+public final class PermissionCache {
+
+    /**
+     * Time after which the decisions of a player are checked again,
+     * so permission changes without an invalidation are picked up.
+     */
+    public static final long EXPIRY_MILLIS = 10_000;
+
+    private static final HasCommandLevel OWNERS_PERMISSION =
+        new HasCommandLevel(PermissionLevel.OWNERS);
+
+    private static final Cache<ServerPlayer, PermissionSet> PLAYERS =
+        new Cache<>(EXPIRY_MILLIS);
+
+    static {
+        if (
+            FabricLoader.getInstance().isModLoaded("fabric-networking-api-v1")
+        ) {
+            registerDisconnectEvent();
+        }
+    }
+
+    private PermissionCache() {}
+
+    private static void registerDisconnectEvent() {
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+            PLAYERS.invalidate(handler.getPlayer().getUUID())
+        );
+    }
+
+    /**
+     * Decisions per player, independent of the player and permission classes.
+     * @param <P> player type.
+     * @param <S> type of the permissions the decisions are made with.
+     */
+    static final class Cache<P, S> {
+
+        private final Map<UUID, Decisions<P, S>> players =
+            new ConcurrentHashMap<>();
+        private final long expiryMillis;
+
+        Cache(long expiryMillis) {
+            this.expiryMillis = expiryMillis;
+        }
+
+        /**
+         * Decisions of a single player.
+         * @param player player the decisions were made for, a new player object means a new login.
+         * @param permissions permissions of the command source the decisions were made with.
+         * @param expiresAt time after which the decisions are dropped.
+         * @param decisions decision per permission node.
+         */
+        private record Decisions<P, S>(
+            WeakReference<P> player,
+            S permissions,
+            long expiresAt,
+            Map<String, Boolean> decisions
+        ) {
+            private boolean isValidFor(P player, S permissions, long now) {
+                return (
+                    this.player.get() == player &&
+                    this.permissions == permissions &&
+                    now < this.expiresAt
+                );
+            }
+        }
+
+        /**
+         * Gets the cached decision or evaluates it.
+         * @param id uuid of the player.
+         * @param player player object, compared by identity.
+         * @param permissions permissions of the player, compared by identity.
+         * @param permission permission node.
+         * @param now current time in milliseconds.
+         * @param evaluate evaluates the permission if there's no valid decision.
+         * @return decision for the permission.
+         */
+        boolean check(
+            UUID id,
+            P player,
+            S permissions,
+            String permission,
+            long now,
+            Predicate<String> evaluate
+        ) {
+            Decisions<P, S> decisions = this.players.get(id);
+            if (
+                decisions == null ||
+                !decisions.isValidFor(player, permissions, now)
+            ) {
+                decisions = new Decisions<>(
+                    new WeakReference<>(player),
+                    permissions,
+                    now + this.expiryMillis,
+                    new ConcurrentHashMap<>()
+                );
+                this.players.put(id, decisions);
+            }
+
+            Boolean decision = decisions.decisions().get(permission);
+            if (decision == null) {
+                decision = evaluate.test(permission);
+                decisions.decisions().put(permission, decision);
+            }
+            return decision;
+        }
+
+        /**
+         * Drops the decisions of the player.
+         * @param id uuid of the player.
+         */
+        void invalidate(UUID id) {
+            this.players.remove(id);
+        }
+    }
+
+    /**
+     * Checks whether the source has the permission, or is an owner (level 4) if the permission is empty.
+     * Decisions for players are cached.
+     * @param source command source.
+     * @param permission permission node, e.g. {@code modid.config.edit.show}.
+     * @return whether the source has the permission.
+     */
+    public static boolean check(CommandSourceStack source, String permission) {
+        ServerPlayer player = source.getPlayer();
+        if (player == null) {
+            return evaluate(source, permission);
+        }
+
+        return PLAYERS.check(
+            player.getUUID(),
+            player,
+            source.permissions(),
+            permission,
+            System.currentTimeMillis(),
+            node -> evaluate(source, node)
+        );
+    }
+
+    /**
+     * Checks whether the source has the permission, or is an owner (level 4) if the permission is empty,
+     * without using or updating the cached decisions.
+     * @param source command source.
+     * @param permission permission node, e.g. {@code modid.config.edit.show}.
+     * @return whether the source has the permission.
+     */
+    public static boolean checkUncached(
+        CommandSourceStack source,
+        String permission
+    ) {
+        return evaluate(source, permission);
+    }
+
+    /**
+     * Drops the cached decisions of the player and sends them the command tree again,
+     * e.g. after their permissions were changed. The tree is sent on the server thread.
+     * @param server server the player is on.
+     * @param player uuid of the player.
+     */
+    public static void invalidate(MinecraftServer server, UUID player) {
+        PLAYERS.invalidate(player);
+        server.execute(() -> {
+            ServerPlayer online = server.getPlayerList().getPlayer(player);
+            if (online != null) {
+                server.getCommands().sendCommands(online);
+            }
+        });
+    }
+
+    private static boolean evaluate(
+        CommandSourceStack source,
+        String permission
+    ) {
+        boolean isOwner = source.permissions().hasPermission(OWNERS_PERMISSION);
+        return permission.isEmpty()
+            ? isOwner
+            : Permissions.check(source, permission, isOwner);
+    }
+}
@@ -0,0 +1,88 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import static net.minecraft.commands.Commands.literal;
+
+import com.mojang.brigadier.tree.CommandNode;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import net.minecraft.commands.CommandSourceStack;
+
+/**
+ * Edit subtrees of classes that are used at several places of a config, e.g. as values
+ * of several maps or as several nested objects, built once per command generation.
+ * <p>
+ * The nodes of a subtree are added as children to the node of each place (its junction),
+ * so the dispatcher holds them only once. Fields of the subtree resolve their object, permission
+ * and name from the junction the command was parsed through, see {@link FieldPath.Container#shared(Map)}.
+ */
+public final class SharedSubtrees {
+
+    private final Set<Class<?>> classes;
+    private final Map<Class<?>, Subtree> subtrees = new HashMap<>();
+
+    /**
+     * Subtree of a class.
+     * @param root node holding the nodes of the subtree.
+     * @param junctions places the subtree is used at by their node.
+     */
+    private record Subtree(
+        CommandNode<CommandSourceStack> root,
+        Map<CommandNode<CommandSourceStack>, FieldPath.Junction> junctions
+    ) {}
+
+    /**
+     * Creates shared subtrees for the classes.
+     * @param classes classes used at several places of the config.
+     */
+    public SharedSubtrees(Set<Class<?>> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Whether the nodes of the class are shared.
+     * @param clazz class of map / list entries or of a nested object.
+     */
+    public boolean isShared(Class<?> clazz) {
+        return this.classes.contains(clazz);
+    }
+
+    /**
+     * Adds the subtree of the class to the junction node, building it on first use.
+     * @param node junction node, e.g. {@code key} argument of a map entry.
+     * @param clazz class of the objects at the junction.
+     * @param junction place of the node.
+     * @param builder builds the subtree into given node, with given container for its fields.
+     */
+    public void attach(
+        CommandNode<CommandSourceStack> node,
+        Class<?> clazz,
+        FieldPath.Junction junction,
+        BiConsumer<
+            CommandNode<CommandSourceStack>,
+            FieldPath.Container
+        > builder
+    ) {
+        Subtree subtree = this.subtrees.get(clazz);
+        if (subtree == null) {
+            // Nodes of different places can be equal, they are told apart by identity
+            Map<CommandNode<CommandSourceStack>, FieldPath.Junction> junctions =
+                new IdentityHashMap<>();
+            subtree = new Subtree(literal(clazz.getName()).build(), junctions);
+            builder.accept(
+                subtree.root(),
+                FieldPath.Container.shared(junctions)
+            );
+            this.subtrees.put(clazz, subtree);
+        }
+
+        subtree.junctions().put(node, junction);
+        for (CommandNode<CommandSourceStack> child : subtree
+            .root()
+            .getChildren()) {
+            node.addChild(child);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import net.minecraft.commands.CommandSourceStack;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.util.WeakIdentityMap;
+
+/**
+ * Sorted index of map keys, list or set values of a config field, used for tab-completion.
+ * <p>
+ * Suggestions only go through the entries starting with the typed text (ignoring case)
+ * and stop at the limit, instead of going through the whole collection on every key press.
+ * The index is built on first use and updated by the map and set edit commands,
+ * lists are reindexed after they're changed.
+ * It's rebuilt if the collection was replaced, its size changed, or it was changed by
+ * a reload or marked as changed with {@link #invalidate(Object)}.
+ */
+public final class SuggestionIndex {
+
+    /**
+     * Changes of single collections that weren't made through the index,
+     * e.g. by reloading the config.
+     */
+    private static final WeakIdentityMap<Object, AtomicInteger> CHANGES =
+        new WeakIdentityMap<>();
+
+    private WeakReference<Object> source = new WeakReference<>(null);
+    private int generation;
+    /**
+     * Size of the indexed collection, lists may hold duplicate entries.
+     */
+    private int size;
+    /**
+     * Entries by their lower case text (followed by the entry itself,
+     * to keep entries differing in case apart).
+     */
+    @Nullable
+    private NavigableMap<String, String> entries;
+
+    /**
+     * Marks the indexes of the collection as outdated, after it was changed in place
+     * without the {@link #add(Object, Object)} and {@link #remove(Object, Object)} updates,
+     * e.g. when a list element is replaced. Changes that alter the size of the collection
+     * are noticed without it.
+     * @param source changed map, list or set.
+     */
+    public static void invalidate(Object source) {
+        CHANGES.computeIfAbsent(source, s -> new AtomicInteger())
+            .incrementAndGet();
+    }
+
+    /**
+     * Gets the generation of the collection, increased on changes.
+     */
+    private static int generation(Object source) {
+        AtomicInteger changes = CHANGES.get(source);
+        return changes != null ? changes.get() : 0;
+    }
+
+    /**
+     * Suggests the entries starting with the typed text.
+     * The index is only checked on the calling thread, the entries are
+     * (re)indexed and suggested off it, see {@link AsyncSuggestions}.
+     * Must be called from the thread that edits the config.
+     * @param requester command source requesting the suggestions.
+     * @param source map, list or set the entries are from.
+     * @param values map keys, list or set values.
+     * @param builder suggestions builder.
+     * @param limit max number of suggestions.
+     * @return suggestions.
+     */
+    public CompletableFuture<Suggestions> suggest(
+        CommandSourceStack requester,
+        Object source,
+        Collection<?> values,
+        SuggestionsBuilder builder,
+        int limit
+    ) {
+        Object[] snapshot;
+        int generation = generation(source);
+        synchronized (this) {
+            snapshot = this.isCurrent(source, values.size(), generation)
+                ? null
+                : values.toArray();
+        }
+        return AsyncSuggestions.supply(requester, cancelled ->
+            this.suggest(
+                source,
+                snapshot,
+                generation,
+                builder,
+                limit,
+                cancelled
+            )
+        );
+    }
+
+    private synchronized Suggestions suggest(
+        Object source,
+        @Nullable Object[] snapshot,
+        int generation,
+        SuggestionsBuilder builder,
+        int limit,
+        BooleanSupplier cancelled
+    ) {
+        if (snapshot != null) {
+            this.rebuild(source, snapshot, generation);
+        }
+
+        String prefix = builder.getRemainingLowerCase();
+        if (prefix.startsWith("\"")) {
+            // Quoted string argument
+            prefix = prefix.substring(1);
+        }
+        Collection<String> matching = this.entries
+            .subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+            .values();
+        int count = 0;
+        for (String entry : matching) {
+            if (count++ >= limit || cancelled.getAsBoolean()) {
+                break;
+            }
+            builder.suggest(entry);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adds the entry to the index after it was added to the collection.
+     * @param source map or set the entry was added to.
+     * @param value added map key or set value.
+     */
+    public synchronized void add(Object source, Object value) {
+        if (this.isIndexed(source)) {
+            String entry = String.valueOf(value);
+            if (this.entries.put(key(entry), entry) == null) {
+                ++this.size;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry from the index after it was removed from the collection.
+     * @param source map or set the entry was removed from.
+     * @param value removed map key or set value.
+     */
+    public synchronized void remove(Object source, Object value) {
+        if (
+            this.isIndexed(source) &&
+            this.entries.remove(key(String.valueOf(value))) != null
+        ) {
+            --this.size;
+        }
+    }
+
+    private static String key(String entry) {
+        return entry.toLowerCase(Locale.ROOT) + '\0' + entry;
+    }
+
+    private boolean isIndexed(Object source) {
+        return (
+            this.entries != null &&
+            this.source.get() == source &&
+            this.generation == generation(source)
+        );
+    }
+
+    private boolean isCurrent(Object source, int size, int generation) {
+        return (
+            this.entries != null &&
+            this.source.get() == source &&
+            this.generation == generation &&
+            this.size == size
+        );
+    }
+
+    private void rebuild(Object source, Object[] values, int generation) {
+        NavigableMap<String, String> entries = new TreeMap<>();
+        for (Object value : values) {
+            String entry = String.valueOf(value);
+            entries.put(key(entry), entry);
+        }
+        this.entries = entries;
+        this.source = new WeakReference<>(source);
+        // Changes made since the snapshot was taken rebuild the index again
+        this.generation = generation;
+        this.size = values.length;
+    }
+}
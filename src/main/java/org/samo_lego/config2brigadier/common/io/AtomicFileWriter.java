@@ -0,0 +1,257 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Crash-safe file writer.
+ * <p>
+ * Content is written to a temporary file in the same directory,
+ * synced according to the {@link FsyncPolicy} and then moved over the
+ * target file with {@link StandardCopyOption#ATOMIC_MOVE}. A crash or a full
+ * disk in the middle of a save therefore leaves either the old or the new file,
+ * never a partial one. The replaced file keeps its permissions and, where
+ * allowed, its owner. Previous versions can be kept as rotating backups
+ * ({@code config.json.bak1} being the newest).
+ * <p>
+ * Temporary files left behind by a crash are deleted on the first write
+ * of the target file.
+ */
+public final class AtomicFileWriter {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String BACKUP_SUFFIX = ".bak";
+
+    /**
+     * Temporary files that are being written.
+     */
+    private static final Set<Path> TEMP_FILES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Target files whose stale temporary files were already deleted.
+     */
+    private static final Set<Path> CLEANED = ConcurrentHashMap.newKeySet();
+
+    private AtomicFileWriter() {}
+
+    /**
+     * Atomically replaces the target file with the content.
+     * @param target file to write.
+     * @param fsyncPolicy fsync policy to use.
+     * @param backups number of rotating backups to keep, 0 to disable backups.
+     * @param content file content, e.g. from {@link JsonBuffer}. Its position is not changed.
+     * @throws IOException if writing fails. Target file is left untouched in that case.
+     */
+    public static void write(
+        Path target,
+        FsyncPolicy fsyncPolicy,
+        int backups,
+        ByteBuffer content
+    ) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        if (CLEANED.add(dir.resolve(target.getFileName()))) {
+            deleteStaleTempFiles(dir, target);
+        }
+
+        Path temp = createTempFile(dir, target);
+        try {
+            copyAttributes(target, temp);
+            try (
+                FileChannel channel = FileChannel.open(
+                    temp,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING
+                )
+            ) {
+                ByteBuffer remaining = content.duplicate();
+                while (remaining.hasRemaining()) {
+                    channel.write(remaining);
+                }
+
+                if (fsyncPolicy.syncFile()) {
+                    channel.force(true);
+                }
+            }
+
+            if (backups > 0 && Files.exists(target)) {
+                rotateBackups(target, backups);
+            }
+
+            try {
+                Files.move(
+                    temp,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+            TEMP_FILES.remove(temp);
+        }
+
+        if (fsyncPolicy.syncDirectory()) {
+            syncDirectory(dir);
+        }
+    }
+
+    /**
+     * Creates an empty temporary file next to the target.
+     * Unlike {@link Files#createTempFile}, it isn't limited to the current user.
+     */
+    private static Path createTempFile(Path dir, Path target)
+        throws IOException {
+        Path temp;
+        while (true) {
+            temp = dir.resolve(
+                target.getFileName().toString() +
+                    "." +
+                    Long.toUnsignedString(
+                        ThreadLocalRandom.current().nextLong(),
+                        Character.MAX_RADIX
+                    ) +
+                    TEMP_SUFFIX
+            );
+            // Registered first, so it's never taken for a stale file
+            TEMP_FILES.add(temp);
+            try {
+                Files.createFile(temp);
+                break;
+            } catch (FileAlreadyExistsException ignored) {
+                // Try another name
+                TEMP_FILES.remove(temp);
+            } catch (IOException e) {
+                TEMP_FILES.remove(temp);
+                throw e;
+            }
+        }
+        return temp;
+    }
+
+    /**
+     * Deletes temporary files of the target that aren't being written,
+     * i.e. ones left behind by a crash during a save.
+     */
+    private static void deleteStaleTempFiles(Path dir, Path target)
+        throws IOException {
+        String prefix = target.getFileName().toString() + ".";
+        DirectoryStream.Filter<Path> stale = path -> {
+            String name = path.getFileName().toString();
+            return (
+                name.length() > prefix.length() + TEMP_SUFFIX.length() &&
+                name.startsWith(prefix) &&
+                name.endsWith(TEMP_SUFFIX) &&
+                name
+                    .substring(
+                        prefix.length(),
+                        name.length() - TEMP_SUFFIX.length()
+                    )
+                    .chars()
+                    .allMatch(c ->
+                        Character.isDigit(c) || (c >= 'a' && c <= 'z')
+                    ) &&
+                !TEMP_FILES.contains(path)
+            );
+        };
+        try (
+            DirectoryStream<Path> files = Files.newDirectoryStream(dir, stale)
+        ) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Gives the temporary file the permissions and owner of the target if it exists,
+     * so replacing the target keeps them.
+     */
+    private static void copyAttributes(Path target, Path temp)
+        throws IOException {
+        PosixFileAttributeView targetView = Files.getFileAttributeView(
+            target,
+            PosixFileAttributeView.class
+        );
+        if (targetView == null || !Files.exists(target)) {
+            return;
+        }
+        PosixFileAttributes attributes = targetView.readAttributes();
+        PosixFileAttributeView tempView = Files.getFileAttributeView(
+            temp,
+            PosixFileAttributeView.class
+        );
+        tempView.setPermissions(attributes.permissions());
+        try {
+            if (!tempView.getOwner().equals(attributes.owner())) {
+                tempView.setOwner(attributes.owner());
+            }
+            tempView.setGroup(attributes.group());
+        } catch (IOException ignored) {
+            // Changing the owner needs privileges, the file is still written
+        }
+    }
+
+    /**
+     * Gets the path of n-th backup of the file.
+     * @param file original file.
+     * @param index backup index, 1 being the newest.
+     * @return backup path.
+     */
+    public static Path backupPath(Path file, int index) {
+        return file.resolveSibling(
+            file.getFileName().toString() + BACKUP_SUFFIX + index
+        );
+    }
+
+    /**
+     * Shifts existing backups by one and copies the current file to the first backup.
+     * The current file is copied rather than moved, so there's no moment
+     * without a config file.
+     */
+    private static void rotateBackups(Path target, int backups)
+        throws IOException {
+        Files.deleteIfExists(backupPath(target, backups));
+        for (int i = backups - 1; i > 0; --i) {
+            Path backup = backupPath(target, i);
+            if (Files.exists(backup)) {
+                Files.move(
+                    backup,
+                    backupPath(target, i + 1),
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            }
+        }
+        Files.copy(
+            target,
+            backupPath(target, 1),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.COPY_ATTRIBUTES
+        );
+    }
+
+    private static void syncDirectory(Path dir) {
+        try (
+            FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)
+        ) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Not supported on all platforms (e.g. Windows)
+        }
+    }
+}
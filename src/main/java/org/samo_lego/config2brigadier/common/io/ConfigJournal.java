@@ -0,0 +1,437 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static java.util.logging.Logger.getLogger;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.MOD_ID;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.annotation.EditJournal;
+
+/**
+ * Append-only journal of config edits, see {@link EditJournal}.
+ * <p>
+ * Each line is a json object with the location of the edited field in the
+ * config json (object keys and array indexes) and its new value, e.g.
+ * {@code {"path":["nested","message"],"value":"Hi"}}.
+ * Edits of a single map entry, list element or set value only hold that entry
+ * (see {@link EntryEdit}), e.g. {@code {"path":["map","key"],"value":1}},
+ * {@code {"path":["map","key"],"remove":true}} or {@code {"path":["set"],"add":"value"}}.
+ * <p>
+ * Replaying an entry that is already part of the json file doesn't change anything.
+ * This keeps loading correct if the server stops between rewriting the json file and
+ * clearing the journal. Adding or removing list elements shifts the other elements,
+ * so such edits hold the whole new list.
+ */
+public final class ConfigJournal {
+
+    private static final String SUFFIX = ".journal";
+
+    /**
+     * Journals smaller than this are not compacted because of their size.
+     */
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final int maxEntries;
+    private final long compactDelay;
+    private int entries;
+    private long bytes;
+    private long baseBytes;
+
+    private ConfigJournal(Path file, EditJournal settings) {
+        this.file = file;
+        this.maxEntries = settings.maxEntries();
+        this.compactDelay = settings.compactDelay();
+    }
+
+    /**
+     * Creates the journal of the config file.
+     * @param configFile config file.
+     * @param configClass class of config object.
+     * @return journal or null if the config class isn't annotated with {@link EditJournal}.
+     */
+    @Nullable
+    static ConfigJournal of(Path configFile, Class<?> configClass) {
+        EditJournal settings = configClass.getAnnotation(EditJournal.class);
+        if (settings == null) {
+            return null;
+        }
+        return new ConfigJournal(path(configFile), settings);
+    }
+
+    /**
+     * Gets the journal file of the config file, if the config is journaled.
+     * @param configFile config file.
+     * @param configClass class of config object.
+     * @return journal file or null if the config class isn't annotated with {@link EditJournal}.
+     */
+    @Nullable
+    static Path pathFor(Path configFile, Class<?> configClass) {
+        return configClass.isAnnotationPresent(EditJournal.class)
+            ? path(configFile)
+            : null;
+    }
+
+    private static Path path(Path configFile) {
+        return configFile.resolveSibling(configFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Gets the name of the field in config json.
+     * @param field config field.
+     * @return serialized name of the field.
+     */
+    public static String jsonName(Field field) {
+        SerializedName serializedName = field.getAnnotation(
+            SerializedName.class
+        );
+        return serializedName != null
+            ? serializedName.value()
+            : GSON.fieldNamingStrategy().translateName(field);
+    }
+
+    /**
+     * Edit of a single entry of a map, list or set field.
+     * @param operation type of the edit.
+     * @param key map key or list index of the entry, null for set values.
+     * @param value new map / list entry or set value, null when removing a map entry.
+     */
+    public record EntryEdit(
+        Operation operation,
+        @Nullable Object key,
+        @Nullable Object value
+    ) {
+        public enum Operation {
+            /**
+             * Sets the map entry of the key.
+             */
+            PUT,
+            /**
+             * Removes the map entry of the key.
+             */
+            REMOVE,
+            /**
+             * Sets the list element at the index.
+             */
+            SET,
+            /**
+             * Adds the value to a set, if it's not there yet.
+             */
+            ADD,
+            /**
+             * Removes the value from a set.
+             */
+            REMOVE_VALUE,
+        }
+
+        public static EntryEdit put(Object key, @Nullable Object value) {
+            return new EntryEdit(Operation.PUT, key, value);
+        }
+
+        public static EntryEdit remove(Object key) {
+            return new EntryEdit(Operation.REMOVE, key, null);
+        }
+
+        public static EntryEdit set(int index, @Nullable Object value) {
+            return new EntryEdit(Operation.SET, index, value);
+        }
+
+        public static EntryEdit add(@Nullable Object value) {
+            return new EntryEdit(Operation.ADD, null, value);
+        }
+
+        public static EntryEdit removeValue(@Nullable Object value) {
+            return new EntryEdit(Operation.REMOVE_VALUE, null, value);
+        }
+
+        /**
+         * Gets the key of the changed map entry, used to find its shard.
+         * @return map key, null if this isn't a map edit.
+         */
+        @Nullable
+        Object mapKey() {
+            return this.operation == Operation.PUT ||
+                this.operation == Operation.REMOVE
+                ? this.key
+                : null;
+        }
+    }
+
+    /**
+     * Creates a journal entry.
+     * @param location location of the field in config json, made of
+     *                 object keys ({@link String}s) and array indexes ({@link Integer}s).
+     * @param value new value of the field.
+     * @return journal entry.
+     */
+    static JsonObject entry(List<Object> location, @Nullable Object value) {
+        JsonObject entry = new JsonObject();
+        entry.add("path", path(location, null));
+        entry.add("value", toJson(value));
+        return entry;
+    }
+
+    /**
+     * Creates a journal entry of a single map, list or set entry.
+     * @param location location of the map, list or set field in config json.
+     * @param edit edit of the entry.
+     * @return journal entry.
+     */
+    static JsonObject entry(List<Object> location, EntryEdit edit) {
+        JsonPrimitive key = switch (edit.operation()) {
+            // Map keys are serialized as json object keys
+            case PUT, REMOVE -> new JsonPrimitive(jsonKey(edit.key()));
+            case SET -> new JsonPrimitive((Integer) edit.key());
+            case ADD, REMOVE_VALUE -> null;
+        };
+        JsonObject entry = new JsonObject();
+        entry.add("path", path(location, key));
+        switch (edit.operation()) {
+            case PUT, SET -> entry.add("value", toJson(edit.value()));
+            case REMOVE -> entry.addProperty("remove", true);
+            case ADD -> entry.add("add", toJson(edit.value()));
+            case REMOVE_VALUE -> entry.add("removeValue", toJson(edit.value()));
+        }
+        return entry;
+    }
+
+    private static JsonArray path(
+        List<Object> location,
+        @Nullable JsonPrimitive last
+    ) {
+        JsonArray path = new JsonArray(location.size() + 1);
+        for (Object segment : location) {
+            path.add(
+                segment instanceof Integer index
+                    ? new JsonPrimitive(index)
+                    : new JsonPrimitive(segment.toString())
+            );
+        }
+        if (last != null) {
+            path.add(last);
+        }
+        return path;
+    }
+
+    private static String jsonKey(@Nullable Object key) {
+        return key instanceof Enum<?> constant
+            ? constant.name()
+            : String.valueOf(key);
+    }
+
+    private static JsonElement toJson(@Nullable Object value) {
+        return value != null ? GSON.toJsonTree(value) : JsonNull.INSTANCE;
+    }
+
+    /**
+     * Whether the journal file exists and has any entries.
+     */
+    static boolean hasEntries(@Nullable Path journal) {
+        try {
+            return (
+                journal != null &&
+                Files.exists(journal) &&
+                Files.size(journal) > 0
+            );
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Applies the journal entries on top of the config json.
+     * Entries that cannot be read (e.g. the last one, if the server stopped while
+     * it was written) or whose location doesn't exist anymore are skipped.
+     * @param journal journal file.
+     * @param root config json.
+     * @return number of applied entries.
+     * @throws IOException if reading fails.
+     */
+    static int replay(Path journal, JsonElement root) throws IOException {
+        String content = new String(
+            Files.readAllBytes(journal),
+            StandardCharsets.UTF_8
+        );
+        int applied = 0;
+        int skipped = 0;
+        for (String line : content.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JsonObject entry = JsonParser.parseString(
+                    line
+                ).getAsJsonObject();
+                if (apply(root, entry)) {
+                    ++applied;
+                } else {
+                    ++skipped;
+                }
+            } catch (
+                JsonParseException
+                | IllegalStateException
+                | ClassCastException
+                | NullPointerException e
+            ) {
+                ++skipped;
+            }
+        }
+        if (skipped > 0) {
+            getLogger(MOD_ID).warning(
+                "[Config2Brigadier] Skipped " +
+                    skipped +
+                    " invalid entries of " +
+                    journal.getFileName()
+            );
+        }
+        return applied;
+    }
+
+    /**
+     * Applies a single journal entry to the config json.
+     * @return false if its location doesn't exist.
+     */
+    private static boolean apply(JsonElement root, JsonObject entry) {
+        JsonArray path = entry.getAsJsonArray("path");
+        if (path.isEmpty()) {
+            return false;
+        }
+        if (entry.has("add") || entry.has("removeValue")) {
+            JsonElement target = root;
+            for (int i = 0; i < path.size() && target != null; ++i) {
+                target = child(target, path.get(i));
+            }
+            if (!(target instanceof JsonArray array)) {
+                return false;
+            }
+            if (entry.has("add")) {
+                JsonElement value = entry.get("add");
+                if (!array.contains(value)) {
+                    array.add(value);
+                }
+            } else {
+                JsonElement value = entry.get("removeValue");
+                while (array.remove(value)) {
+                    // Set values are unique, but the file may have been edited
+                }
+            }
+            return true;
+        }
+
+        JsonElement parent = root;
+        for (int i = 0; i < path.size() - 1 && parent != null; ++i) {
+            parent = child(parent, path.get(i));
+        }
+        JsonPrimitive last = path.get(path.size() - 1).getAsJsonPrimitive();
+        if (entry.has("remove")) {
+            if (parent instanceof JsonObject object && last.isString()) {
+                object.remove(last.getAsString());
+                return true;
+            }
+            return false;
+        }
+
+        JsonElement value = entry.get("value");
+        if (value == null) {
+            return false;
+        }
+        if (parent instanceof JsonObject object && last.isString()) {
+            object.add(last.getAsString(), value);
+            return true;
+        }
+        if (parent instanceof JsonArray array && last.isNumber()) {
+            int index = last.getAsInt();
+            if (index >= 0 && index < array.size()) {
+                array.set(index, value);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static JsonElement child(JsonElement parent, JsonElement segment) {
+        JsonPrimitive key = segment.getAsJsonPrimitive();
+        if (parent instanceof JsonObject object && key.isString()) {
+            return object.get(key.getAsString());
+        }
+        if (parent instanceof JsonArray array && key.isNumber()) {
+            int index = key.getAsInt();
+            return index >= 0 && index < array.size() ? array.get(index) : null;
+        }
+        return null;
+    }
+
+    long compactDelay() {
+        return this.compactDelay;
+    }
+
+    /**
+     * Appends the entry to the journal file.
+     * @param entry entry from {@link #entry(List, Object)}.
+     * @param fsyncPolicy fsync policy of the config.
+     * @throws IOException if writing fails.
+     */
+    synchronized void append(JsonObject entry, FsyncPolicy fsyncPolicy)
+        throws IOException {
+        ByteBuffer line = StandardCharsets.UTF_8.encode(entry + "\n");
+        int size = line.remaining();
+        try (
+            FileChannel channel = FileChannel.open(
+                this.file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+            )
+        ) {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            if (fsyncPolicy.syncFile()) {
+                channel.force(false);
+            }
+        }
+        ++this.entries;
+        this.bytes += size;
+    }
+
+    /**
+     * Whether the json file should be rewritten, as the journal has too many
+     * entries or is larger than the json file itself.
+     */
+    synchronized boolean shouldCompact() {
+        return (
+            this.entries >= this.maxEntries ||
+            this.bytes >= Math.max(this.baseBytes, MIN_COMPACT_BYTES)
+        );
+    }
+
+    /**
+     * Clears the journal after the json file was rewritten with all edits.
+     * @param baseBytes size of the json file.
+     * @throws IOException if deleting the journal fails.
+     */
+    synchronized void clear(long baseBytes) throws IOException {
+        Files.deleteIfExists(this.file);
+        this.entries = 0;
+        this.bytes = 0;
+        this.baseBytes = baseBytes;
+    }
+}
@@ -0,0 +1,410 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static java.util.logging.Logger.getLogger;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.MOD_ID;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.annotation.BinarySnapshot;
+import org.samo_lego.config2brigadier.common.annotation.EditJournal;
+import org.samo_lego.config2brigadier.common.annotation.ShardedStorage;
+
+/**
+ * Loads config files, see {@link IBrigadierConfigurator#loadConfigFile}.
+ * Load times are logged, at info level for slow configs.
+ */
+public final class ConfigLoader {
+
+    /**
+     * Loads slower than this are logged at info level.
+     */
+    private static final long SLOW_LOAD_NANOS = 50_000_000;
+
+    private ConfigLoader() {}
+
+    /**
+     * Loads the config from file and registers its {@link ConfigStorage}.
+     * <p>
+     * If the file cannot be parsed, backups are tried before falling back to defaults,
+     * and the broken file is moved aside as {@code .corrupted}. Saving the loaded config
+     * then doesn't rotate the broken file into the backups.
+     * If the file cannot be read at all, loading fails and the file is left as is,
+     * as its content may be fine.
+     * The file is only rewritten if it's missing or its content differs from the
+     * serialized config (e.g. new fields were added).
+     * <p>
+     * Configs annotated with {@link BinarySnapshot} are loaded from the snapshot
+     * if the json file wasn't changed since.
+     * <p>
+     * For configs annotated with {@link EditJournal}, the journal is applied
+     * on top of the file and the file is rewritten with the journaled edits.
+     * Fields annotated with {@link ShardedStorage} are read from their shards.
+     * @param file file to load the config from.
+     * @param configClass class of config object.
+     * @param fallbackConstructor default config supplier.
+     * @return config object.
+     * @throws UncheckedIOException if the file, its journal or shards cannot be read.
+     */
+    public static <C extends IBrigadierConfigurator> C load(
+        Path file,
+        Class<C> configClass,
+        Supplier<C> fallbackConstructor
+    ) {
+        // Snapshot wouldn't notice changed shards
+        boolean useSnapshot =
+            configClass.isAnnotationPresent(BinarySnapshot.class) &&
+            !ConfigShards.hasShards(configClass);
+        Path journal = ConfigJournal.pathFor(file, configClass);
+        ConfigShards shards = ConfigShards.of(file, configClass);
+        C config = null;
+        byte[] contentHash = null;
+        LoadStats loadStats = null;
+
+        // Snapshot doesn't contain the journaled edits
+        if (
+            useSnapshot &&
+            Files.exists(file) &&
+            !ConfigJournal.hasEntries(journal)
+        ) {
+            long start = System.nanoTime();
+            JsonSnapshot.Loaded<C> loaded = JsonSnapshot.load(file, configClass);
+            if (loaded != null) {
+                loadStats = new LoadStats(
+                    loaded.bytes(),
+                    0,
+                    System.nanoTime() - start,
+                    true
+                );
+                logLoad(file, loadStats);
+
+                // Json file is unchanged and matches the config class, no need to save
+                ConfigStorage.register(
+                    loaded.config(),
+                    file,
+                    loaded.contentHash(),
+                    loadStats
+                );
+                return loaded.config();
+            }
+        }
+
+        if (Files.exists(file)) {
+            long start = System.nanoTime();
+            ByteBuffer content;
+            try {
+                content = readFully(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(
+                    "Cannot read config " + file.getFileName(),
+                    e
+                );
+            }
+            long read = System.nanoTime();
+            config = parse(content, configClass, file, shards);
+
+            if (config != null) {
+                contentHash = ConfigStorage.hash(content);
+                loadStats = new LoadStats(
+                    content.remaining(),
+                    read - start,
+                    System.nanoTime() - read,
+                    false
+                );
+                logLoad(file, loadStats);
+            } else {
+                // Don't overwrite a broken config with defaults, try backups first
+                for (
+                    int i = 1;
+                    config == null &&
+                    Files.exists(AtomicFileWriter.backupPath(file, i));
+                    ++i
+                ) {
+                    Path backup = AtomicFileWriter.backupPath(file, i);
+                    config = parse(read(backup), configClass, file, shards);
+                    if (config != null) {
+                        getLogger(MOD_ID).warning(
+                            "[Config2Brigadier] Config " +
+                                file.getFileName() +
+                                " is corrupted, loaded backup " +
+                                backup.getFileName()
+                        );
+                    }
+                }
+
+                keepCorrupted(file);
+            }
+        }
+        if (config == null) {
+            config = fallbackConstructor.get();
+            if (shards != null) {
+                try {
+                    shards.read(config);
+                } catch (IOException e) {
+                    getLogger(MOD_ID).severe(
+                        "[Config2Brigadier] Problem occurred when trying to load config: " +
+                            e.getMessage()
+                    );
+                }
+            }
+        }
+
+        ConfigStorage storage = ConfigStorage.register(
+            config,
+            file,
+            contentHash,
+            loadStats,
+            shards
+        );
+        try {
+            // Shards are only written if they don't exist yet
+            storage.saveChanged(config);
+            if (useSnapshot) {
+                JsonSnapshot.write(file, storage.contentHash(), config);
+            }
+        } catch (IOException | JsonIOException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when saving config: " +
+                    e.getMessage()
+            );
+        }
+
+        return config;
+    }
+
+    /**
+     * Config parsed from the file.
+     * @param config config object.
+     * @param contentHash {@link ConfigStorage#hash(ByteBuffer)} of the file content.
+     */
+    record Parsed<C>(C config, byte[] contentHash) {}
+
+    /**
+     * Reads and parses the file, without any fallbacks.
+     * @param file file to parse.
+     * @param configClass class of config object.
+     * @return parsed config.
+     * @throws IOException if reading fails.
+     * @throws JsonParseException if the file is not a valid config.
+     */
+    static <C> Parsed<C> parseFile(Path file, Class<C> configClass)
+        throws IOException {
+        return parseFile(file, configClass, null);
+    }
+
+    /**
+     * Reads and parses the file, without any fallbacks, unless its content
+     * matches the last load or save of the storage.
+     * Configs annotated with {@link EditJournal} are read on the writer of
+     * {@link SaveScheduler}, so a compaction can't clear the journal
+     * between reading the file and the journal.
+     * @param file file to parse.
+     * @param configClass class of config object.
+     * @param storage storage of the loaded config, null to always parse the file.
+     * @return parsed config, null if the content is unchanged.
+     * @throws IOException if reading fails.
+     * @throws JsonParseException if the file is not a valid config.
+     */
+    @Nullable
+    static <C> Parsed<C> parseFile(
+        Path file,
+        Class<C> configClass,
+        @Nullable ConfigStorage storage
+    ) throws IOException {
+        if (ConfigJournal.pathFor(file, configClass) == null) {
+            return decodeFile(file, configClass, storage);
+        }
+        return SaveScheduler.awaitOnWriter(() ->
+            decodeFile(file, configClass, storage)
+        );
+    }
+
+    @Nullable
+    private static <C> Parsed<C> decodeFile(
+        Path file,
+        Class<C> configClass,
+        @Nullable ConfigStorage storage
+    ) throws IOException {
+        ByteBuffer content = readFully(file);
+        byte[] contentHash = ConfigStorage.hash(content);
+        if (
+            storage != null && Arrays.equals(contentHash, storage.contentHash())
+        ) {
+            return null;
+        }
+        C config = decode(
+            content,
+            configClass,
+            file,
+            ConfigShards.of(file, configClass)
+        );
+        if (config == null) {
+            throw new JsonParseException("File is empty");
+        }
+        return new Parsed<>(config, contentHash);
+    }
+
+    /**
+     * Reads the whole file, logging any errors.
+     */
+    @Nullable
+    static ByteBuffer read(Path path) {
+        try {
+            return readFully(path);
+        } catch (IOException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when trying to load config: " +
+                    e.getMessage()
+            );
+        }
+        return null;
+    }
+
+    /**
+     * Reads the whole file with a single pass into one buffer.
+     * The file is not memory-mapped, as a live mapping would prevent
+     * replacing the file on save on some platforms.
+     */
+    static ByteBuffer readFully(Path path) throws IOException {
+        try (
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)
+        ) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large: " + size + " bytes");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // Read until the buffer is full
+            }
+            return buffer.flip();
+        }
+    }
+
+    /**
+     * Parses the content, applies the edit journal and reads the shards, logging any errors.
+     * @param shards shards to read the sharded fields from.
+     * @throws JsonIOException if the journal or shards cannot be read.
+     */
+    @Nullable
+    private static <C> C parse(
+        @Nullable ByteBuffer content,
+        Class<C> configClass,
+        @Nullable Path file,
+        @Nullable ConfigShards shards
+    ) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            return decode(content, configClass, file, shards);
+        } catch (JsonIOException e) {
+            // Not a broken config, the caller mustn't replace it
+            throw e;
+        } catch (JsonParseException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when trying to load config: " +
+                    e.getMessage()
+            );
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the content in bulk and parses it from the decoded chars.
+     * If there are journaled edits, they are applied to the json tree first.
+     * Sharded fields are read afterwards.
+     * @param file config file the journal belongs to, null to only parse the content.
+     * @param shards shards to read the sharded fields from.
+     */
+    @Nullable
+    private static <C> C decode(
+        ByteBuffer content,
+        Class<C> configClass,
+        @Nullable Path file,
+        @Nullable ConfigShards shards
+    ) {
+        Path journal = file != null
+            ? ConfigJournal.pathFor(file, configClass)
+            : null;
+        CharBuffer chars = StandardCharsets.UTF_8.decode(content.duplicate());
+        Reader reader = new CharArrayReader(
+            chars.array(),
+            chars.arrayOffset() + chars.position(),
+            chars.remaining()
+        );
+        C config;
+        try {
+            if (ConfigJournal.hasEntries(journal)) {
+                JsonElement json = JsonParser.parseReader(reader);
+                int applied = ConfigJournal.replay(journal, json);
+                getLogger(MOD_ID).fine(
+                    "[Config2Brigadier] Applied " +
+                        applied +
+                        " journaled edits from " +
+                        journal.getFileName()
+                );
+                config = GSON.fromJson(json, configClass);
+            } else {
+                config = GSON.fromJson(reader, configClass);
+            }
+            if (config != null && shards != null) {
+                shards.read(config);
+            }
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return config;
+    }
+
+    private static void logLoad(Path file, LoadStats stats) {
+        String message =
+            "[Config2Brigadier] Loaded " + file.getFileName() + ": " + stats;
+        if (stats.totalNanos() >= SLOW_LOAD_NANOS) {
+            getLogger(MOD_ID).info(message);
+        } else {
+            getLogger(MOD_ID).fine(message);
+        }
+    }
+
+    /**
+     * Moves the broken file aside, so the next save doesn't rotate it into the backups
+     * in place of the backup the config may have been loaded from.
+     */
+    private static void keepCorrupted(Path file) {
+        try {
+            Path corrupted = file.resolveSibling(
+                file.getFileName() + ".corrupted"
+            );
+            Files.move(file, corrupted, StandardCopyOption.REPLACE_EXISTING);
+            getLogger(MOD_ID).warning(
+                "[Config2Brigadier] Corrupted config was kept as " +
+                    corrupted.getFileName()
+            );
+        } catch (IOException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when trying to keep corrupted config: " +
+                    e.getMessage()
+            );
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static java.util.logging.Logger.getLogger;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.MOD_ID;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.annotation.ShardedStorage;
+import org.samo_lego.config2brigadier.common.util.FieldAccessor;
+
+/**
+ * Storage of the config fields annotated with {@link ShardedStorage}.
+ * <p>
+ * Each sharded field is kept in its own directory next to the config file,
+ * e.g. {@code config.json.fieldName/shard-0.json}, and left out of the config file.
+ * Map entries are assigned to shards by the hash of their json key.
+ * Edits mark single shards as changed, whole config saves compare the content
+ * of each shard with the last written one, so only changed shards are written.
+ * <p>
+ * Shards that can't be parsed are never written or deleted, so their entries are kept
+ * until the file is fixed by hand. Edits of their entries are only kept in memory.
+ */
+public final class ConfigShards {
+
+    private static final String SHARD_PREFIX = "shard-";
+    private static final String SHARD_SUFFIX = ".json";
+
+    /**
+     * Sharded fields of the config class and its superclasses.
+     */
+    private static final ClassValue<List<Field>> FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (
+                        field.isAnnotationPresent(ShardedStorage.class) &&
+                        !Modifier.isStatic(field.getModifiers())
+                    ) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return List.copyOf(fields);
+        }
+    };
+
+    private final List<ShardedField> fields;
+    private final Gson fileGson;
+
+    private ConfigShards(Path configFile, List<Field> fields) {
+        this.fields = fields
+            .stream()
+            .map(field -> new ShardedField(configFile, field))
+            .toList();
+        this.fileGson = GSON.newBuilder()
+            .addSerializationExclusionStrategy(
+                new ExclusionStrategy() {
+                    @Override
+                    public boolean shouldSkipField(FieldAttributes field) {
+                        return fields
+                            .stream()
+                            .anyMatch(
+                                sharded ->
+                                    sharded.getDeclaringClass() ==
+                                        field.getDeclaringClass() &&
+                                    sharded.getName().equals(field.getName())
+                            );
+                    }
+
+                    @Override
+                    public boolean shouldSkipClass(Class<?> type) {
+                        return false;
+                    }
+                }
+            )
+            .create();
+    }
+
+    /**
+     * Creates the shard storage of the config file.
+     * @param configFile config file.
+     * @param configClass class of config object.
+     * @return shards or null if the config class has no fields annotated with {@link ShardedStorage}.
+     */
+    @Nullable
+    static ConfigShards of(Path configFile, Class<?> configClass) {
+        List<Field> fields = FIELDS.get(configClass);
+        return fields.isEmpty() ? null : new ConfigShards(configFile, fields);
+    }
+
+    /**
+     * Whether the config class has any fields annotated with {@link ShardedStorage}.
+     */
+    static boolean hasShards(Class<?> configClass) {
+        return !FIELDS.get(configClass).isEmpty();
+    }
+
+    /**
+     * Json of a shard to write, taken on the thread that edits the config.
+     * @param field sharded field.
+     * @param index index of the shard.
+     * @param json shard content, null if the shard file should be deleted.
+     */
+    record Shard(ShardedField field, int index, @Nullable JsonElement json) {}
+
+    /**
+     * Gets the gson used for the config file, which leaves out sharded fields.
+     */
+    Gson fileGson() {
+        return this.fileGson;
+    }
+
+    /**
+     * Reads the shards into the config object.
+     * Fields whose directory doesn't exist yet keep their current value
+     * and are written to shards on the next save. Shards that can't be parsed
+     * are skipped and left untouched from then on.
+     * @param config config object.
+     * @throws IOException if reading fails.
+     */
+    void read(Object config) throws IOException {
+        for (ShardedField field : this.fields) {
+            field.read(config);
+        }
+    }
+
+    /**
+     * Marks the shards changed by an edit.
+     * @param location location of the edited field in config json.
+     * @param entryKey key of the changed map entry, null if unknown.
+     * @return false if the location isn't in a sharded field.
+     */
+    synchronized boolean markDirty(
+        List<Object> location,
+        @Nullable Object entryKey
+    ) {
+        if (location.isEmpty()) {
+            return false;
+        }
+        for (ShardedField field : this.fields) {
+            if (field.name.equals(location.getFirst())) {
+                // Edits inside of an entry have its key in the location
+                field.markDirty(
+                    location.size() > 1 ? location.get(1) : entryKey
+                );
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks all shards as possibly changed, e.g. before saving the whole config.
+     */
+    synchronized void markAll() {
+        for (ShardedField field : this.fields) {
+            field.allDirty = true;
+        }
+    }
+
+    /**
+     * Takes the json of changed shards and clears the changes.
+     * Must be called from the thread that edits the config.
+     * @param config config object.
+     * @return shards to write.
+     */
+    synchronized List<Shard> snapshot(Object config) {
+        List<Shard> shards = new ArrayList<>();
+        for (ShardedField field : this.fields) {
+            field.snapshot(config, shards);
+        }
+        return shards;
+    }
+
+    /**
+     * Writes the shards whose content differs from the last written one.
+     * @param shards shards from {@link #snapshot(Object)}.
+     * @param config config that is saved, provides the write settings.
+     * @return whether any shard file was written.
+     * @throws IOException if writing fails.
+     */
+    boolean write(List<Shard> shards, IBrigadierConfigurator config)
+        throws IOException {
+        boolean written = false;
+        for (Shard shard : shards) {
+            written |= shard.field().write(shard, config);
+        }
+        return written;
+    }
+
+    /**
+     * Gets the json key of the map key, which decides its shard.
+     */
+    private static String keyString(Object key) {
+        return key instanceof Enum<?> constant
+            ? constant.name()
+            : String.valueOf(key);
+    }
+
+    /**
+     * Sharded field with the state of its shards.
+     */
+    static final class ShardedField {
+
+        private final FieldAccessor accessor;
+        private final String name;
+        private final Path directory;
+        private final boolean map;
+        private final int count;
+        private final BitSet dirty = new BitSet();
+        private final byte[][] hashes;
+        private final Set<Integer> stale = new HashSet<>();
+        private final Set<Integer> corrupt = new HashSet<>();
+        private boolean allDirty;
+
+        private ShardedField(Path configFile, Field field) {
+            this.accessor = FieldAccessor.of(field);
+            this.name = ConfigJournal.jsonName(field);
+            this.directory = configFile.resolveSibling(
+                configFile.getFileName() + "." + this.name
+            );
+            this.map = Map.class.isAssignableFrom(field.getType());
+            this.count = this.map
+                ? Math.max(1, field.getAnnotation(ShardedStorage.class).shards())
+                : 1;
+            this.hashes = new byte[this.count][];
+            // Not stored in shards yet
+            this.allDirty = !Files.isDirectory(this.directory);
+        }
+
+        private Path file(int index) {
+            return this.directory.resolve(SHARD_PREFIX + index + SHARD_SUFFIX);
+        }
+
+        private int shardOf(Object key) {
+            return Math.floorMod(keyString(key).hashCode(), this.count);
+        }
+
+        /**
+         * Gets the index of the shard file, -1 if it's not a shard.
+         */
+        private static int indexOf(Path file) {
+            String fileName = file.getFileName().toString();
+            if (
+                !fileName.startsWith(SHARD_PREFIX) ||
+                !fileName.endsWith(SHARD_SUFFIX)
+            ) {
+                return -1;
+            }
+            try {
+                return Integer.parseInt(
+                    fileName.substring(
+                        SHARD_PREFIX.length(),
+                        fileName.length() - SHARD_SUFFIX.length()
+                    )
+                );
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void read(Object config) throws IOException {
+            if (!Files.isDirectory(this.directory)) {
+                this.allDirty = true;
+                return;
+            }
+            List<Path> files;
+            try (Stream<Path> list = Files.list(this.directory)) {
+                files = list.filter(file -> indexOf(file) >= 0).toList();
+            }
+
+            Map<Object, Object> entries = new HashMap<>();
+            for (Path file : files) {
+                int index = indexOf(file);
+                byte[] content = Files.readAllBytes(file);
+                Object value;
+                try {
+                    value = GSON.fromJson(
+                        new String(content, StandardCharsets.UTF_8),
+                        this.accessor.genericType()
+                    );
+                } catch (JsonParseException e) {
+                    // Keep the other shards, broken one would lose its entries if written
+                    getLogger(MOD_ID).severe(
+                        "[Config2Brigadier] Problem occurred when trying to load config shard " +
+                            file +
+                            ", it won't be saved until fixed: " +
+                            e.getMessage()
+                    );
+                    this.corrupt.add(index);
+                    continue;
+                }
+
+                if (index < this.count) {
+                    this.hashes[index] = ConfigStorage.hash(content);
+                } else {
+                    // Shard count was lowered, redistribute the entries
+                    this.stale.add(index);
+                    this.allDirty = true;
+                }
+                if (!this.map) {
+                    if (index == 0) {
+                        this.accessor.set(config, value);
+                    }
+                } else if (value != null) {
+                    entries.putAll((Map<?, ?>) value);
+                }
+            }
+
+            if (this.map) {
+                Map<Object, Object> current =
+                    (Map<Object, Object>) this.accessor.get(config);
+                try {
+                    // Keeps the map type of the config
+                    current.clear();
+                    current.putAll(entries);
+                } catch (
+                    UnsupportedOperationException | NullPointerException e
+                ) {
+                    this.accessor.set(config, entries);
+                }
+            }
+        }
+
+        private void markDirty(@Nullable Object key) {
+            if (this.map && key != null) {
+                this.dirty.set(this.shardOf(key));
+            } else {
+                this.allDirty = true;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void snapshot(Object config, List<Shard> shards) {
+            if (!this.allDirty && this.dirty.isEmpty()) {
+                return;
+            }
+            for (int index : this.corrupt) {
+                if (index < this.count && this.dirty.get(index)) {
+                    getLogger(MOD_ID).warning(
+                        "[Config2Brigadier] Edit of config shard " +
+                            this.file(index) +
+                            " isn't saved, as the shard couldn't be loaded"
+                    );
+                }
+            }
+            Object value = this.accessor.get(config);
+            if (!this.map) {
+                if (this.corrupt.contains(0)) {
+                    this.allDirty = false;
+                    return;
+                }
+                shards.add(
+                    new Shard(
+                        this,
+                        0,
+                        GSON.toJsonTree(value, this.accessor.genericType())
+                    )
+                );
+            } else {
+                Map<Object, Object>[] parts = new Map[this.count];
+                for (int i = 0; i < this.count; ++i) {
+                    if (
+                        (this.allDirty || this.dirty.get(i)) &&
+                        !this.corrupt.contains(i)
+                    ) {
+                        parts[i] = new LinkedHashMap<>();
+                    }
+                }
+                if (value instanceof Map<?, ?> map) {
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        int index = this.shardOf(entry.getKey());
+                        if (parts[index] != null) {
+                            parts[index].put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+                for (int i = 0; i < this.count; ++i) {
+                    if (parts[i] != null) {
+                        shards.add(
+                            new Shard(
+                                this,
+                                i,
+                                GSON.toJsonTree(
+                                    parts[i],
+                                    this.accessor.genericType()
+                                )
+                            )
+                        );
+                    }
+                }
+            }
+
+            if (this.allDirty) {
+                for (int index : this.stale) {
+                    shards.add(new Shard(this, index, null));
+                }
+                this.stale.clear();
+            }
+            this.allDirty = false;
+            this.dirty.clear();
+        }
+
+        private boolean write(Shard shard, IBrigadierConfigurator config)
+            throws IOException {
+            Path file = this.file(shard.index());
+            if (shard.json() == null) {
+                Files.deleteIfExists(file);
+                return true;
+            }
+
+            ByteBuffer json = JsonBuffer.serialize(
+                shard.json(),
+                config.useCompactJson()
+            );
+            byte[] hash = ConfigStorage.hash(json);
+            if (
+                Arrays.equals(hash, this.hashes[shard.index()]) &&
+                Files.exists(file)
+            ) {
+                return false;
+            }
+            // Backups of single shards wouldn't be consistent with each other
+            AtomicFileWriter.write(file, config.getFsyncPolicy(), 0, json);
+            this.hashes[shard.index()] = hash;
+            return true;
+        }
+    }
+}
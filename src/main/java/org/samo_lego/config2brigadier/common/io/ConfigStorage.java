@@ -0,0 +1,385 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static java.util.logging.Logger.getLogger;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.MOD_ID;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.util.WeakIdentityMap;
+
+/**
+ * Persistence state of a config that was loaded from a file with
+ * {@link IBrigadierConfigurator#loadConfigFile}.
+ * Keeps a hash of the file content, so saves that wouldn't change the file are skipped.
+ * <p>
+ * Configs are kept weakly, so config objects that were only loaded to be
+ * copied over with {@link IBrigadierConfigurator#reload(IBrigadierConfigurator)}
+ * can still be garbage collected.
+ */
+public final class ConfigStorage {
+
+    private static final WeakIdentityMap<
+        IBrigadierConfigurator,
+        ConfigStorage
+    > STORAGES = new WeakIdentityMap<>();
+
+    private final Path file;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicBoolean pendingCompaction = new AtomicBoolean();
+    @Nullable
+    private byte[] contentHash;
+    @Nullable
+    private volatile SaveStats lastSave;
+
+    @Nullable
+    private final LoadStats lastLoad;
+    @Nullable
+    private final ConfigJournal journal;
+    @Nullable
+    private final ConfigShards shards;
+
+    private ConfigStorage(
+        Path file,
+        @Nullable byte[] contentHash,
+        @Nullable LoadStats lastLoad,
+        @Nullable ConfigJournal journal,
+        @Nullable ConfigShards shards
+    ) {
+        this.file = file;
+        this.contentHash = contentHash;
+        this.lastLoad = lastLoad;
+        this.journal = journal;
+        this.shards = shards;
+    }
+
+    /**
+     * Registers the file the config was loaded from.
+     * @param config config object.
+     * @param file config file.
+     * @param contentHash {@link #hash(byte[])} of the current file content, null if file doesn't exist.
+     * @param loadStats cost of loading the config, null if it wasn't loaded from the file.
+     * @return storage of the config.
+     */
+    public static ConfigStorage register(
+        IBrigadierConfigurator config,
+        Path file,
+        @Nullable byte[] contentHash,
+        @Nullable LoadStats loadStats
+    ) {
+        return register(
+            config,
+            file,
+            contentHash,
+            loadStats,
+            ConfigShards.of(file, config.getClass())
+        );
+    }
+
+    /**
+     * Registers the file the config was loaded from.
+     * @param shards shards the config was read from, see {@link ConfigShards#read(Object)}.
+     * @see #register(IBrigadierConfigurator, Path, byte[], LoadStats)
+     */
+    static ConfigStorage register(
+        IBrigadierConfigurator config,
+        Path file,
+        @Nullable byte[] contentHash,
+        @Nullable LoadStats loadStats,
+        @Nullable ConfigShards shards
+    ) {
+        ConfigStorage storage = new ConfigStorage(
+            file,
+            contentHash,
+            loadStats,
+            ConfigJournal.of(file, config.getClass()),
+            shards
+        );
+        STORAGES.put(config, storage);
+        return storage;
+    }
+
+    /**
+     * Gets the storage of the config.
+     * @param config config object.
+     * @return storage or null if config wasn't loaded with {@link IBrigadierConfigurator#loadConfigFile}.
+     */
+    @Nullable
+    public static ConfigStorage get(IBrigadierConfigurator config) {
+        return STORAGES.get(config);
+    }
+
+    /**
+     * Gets all currently registered configs.
+     * @return copy of registered configs.
+     */
+    static List<IBrigadierConfigurator> configs() {
+        return STORAGES.keys();
+    }
+
+    /**
+     * Hashes file content, used to detect whether a save would change the file.
+     * @param content file content.
+     * @return SHA-256 digest of the content.
+     */
+    public static byte[] hash(byte[] content) {
+        return hash(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Hashes file content, used to detect whether a save would change the file.
+     * @param content file content. Its position is not changed.
+     * @return SHA-256 digest of the content.
+     */
+    public static byte[] hash(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Path file() {
+        return this.file;
+    }
+
+    /**
+     * Gets the hash of the file content that was last loaded or saved.
+     */
+    synchronized byte[] contentHash() {
+        return this.contentHash;
+    }
+
+    /**
+     * Updates the content hash after the config was reloaded from the file.
+     * @param contentHash {@link #hash(byte[])} of the reloaded file content.
+     */
+    synchronized void loaded(byte[] contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Gets the edit journal of the config.
+     * @return journal or null if the config isn't annotated with {@link org.samo_lego.config2brigadier.common.annotation.EditJournal}.
+     */
+    @Nullable
+    ConfigJournal journal() {
+        return this.journal;
+    }
+
+    /**
+     * Whether the config has fields annotated with {@link org.samo_lego.config2brigadier.common.annotation.ShardedStorage}.
+     */
+    boolean hasShards() {
+        return this.shards != null;
+    }
+
+    /**
+     * Gets the gson used for the config file.
+     */
+    private Gson gson() {
+        return this.shards != null ? this.shards.fileGson() : GSON;
+    }
+
+    /**
+     * Gets the cost of loading the config.
+     * @return load stats or null if the config wasn't loaded from the file (e.g. it didn't exist).
+     */
+    @Nullable
+    public LoadStats lastLoad() {
+        return this.lastLoad;
+    }
+
+    /**
+     * Gets the cost of the last save.
+     * @return save stats or null if the config wasn't saved yet.
+     */
+    @Nullable
+    public SaveStats lastSave() {
+        return this.lastSave;
+    }
+
+    /**
+     * Serializes the config and writes it to the file.
+     * Must be called from the thread that edits the config.
+     * @param config config to save.
+     * @return whether any file was written, false if the content was unchanged.
+     * @throws IOException if writing fails.
+     */
+    public boolean save(IBrigadierConfigurator config) throws IOException {
+        if (this.shards != null) {
+            this.shards.markAll();
+        }
+        return this.saveChanged(config);
+    }
+
+    /**
+     * Serializes the config and writes it to the file, along with the shards
+     * that were changed since the last save.
+     * Must be called from the thread that edits the config.
+     * @param config config to save.
+     * @return whether any file was written.
+     * @throws IOException if writing fails.
+     */
+    boolean saveChanged(IBrigadierConfigurator config) throws IOException {
+        return this.write(
+            config,
+            config,
+            this.shards != null ? this.shards.snapshot(config) : List.of()
+        );
+    }
+
+    /**
+     * Json of the config, taken on the thread that edits the config
+     * and written by {@link SaveScheduler}.
+     * @param json config file content.
+     * @param shards changed shards of the config.
+     */
+    record Snapshot(JsonElement json, List<ConfigShards.Shard> shards) {}
+
+    /**
+     * Takes a snapshot of the config for writing it on another thread.
+     * Must be called from the thread that edits the config.
+     * @param config config to take the snapshot of.
+     * @return config snapshot.
+     */
+    Snapshot snapshot(IBrigadierConfigurator config) {
+        return new Snapshot(
+            this.gson().toJsonTree(config),
+            this.shards != null ? this.shards.snapshot(config) : List.of()
+        );
+    }
+
+    /**
+     * Serializes the source and writes it to the file if it differs
+     * from the last content that was loaded or saved.
+     * The edit journal is cleared afterwards, as the file now contains all edits.
+     * @param config config that is saved, provides the write settings.
+     * @param source config or its {@link JsonElement} snapshot.
+     * @param shards changed shards to write, see {@link ConfigShards#snapshot(Object)}.
+     * @return whether any file was written, false if the content was unchanged.
+     * @throws IOException if writing fails.
+     */
+    synchronized boolean write(
+        IBrigadierConfigurator config,
+        Object source,
+        List<ConfigShards.Shard> shards
+    ) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer json = JsonBuffer.serialize(
+            this.gson(),
+            source,
+            config.useCompactJson()
+        );
+        byte[] hash = hash(json);
+        long serialized = System.nanoTime();
+
+        boolean written = false;
+        if (
+            !Arrays.equals(hash, this.contentHash) || !Files.exists(this.file)
+        ) {
+            AtomicFileWriter.write(
+                this.file,
+                config.getFsyncPolicy(),
+                config.getBackupCount(),
+                json
+            );
+            this.contentHash = hash;
+            written = true;
+        }
+        this.lastSave = new SaveStats(
+            json.remaining(),
+            serialized - start,
+            written ? System.nanoTime() - serialized : 0,
+            written
+        );
+
+        // Reuses the json buffer of this thread
+        boolean shardsWritten =
+            this.shards != null && this.shards.write(shards, config);
+        if (this.journal != null) {
+            this.journal.clear(this.lastSave.bytes());
+        }
+
+        getLogger(MOD_ID).fine(
+            "[Config2Brigadier] Saved " +
+                this.file.getFileName() +
+                ": " +
+                this.lastSave
+        );
+        return written || shardsWritten;
+    }
+
+    /**
+     * Marks the config as changed since the last save.
+     */
+    public void markDirty() {
+        this.dirty.set(true);
+        if (this.shards != null) {
+            this.shards.markAll();
+        }
+    }
+
+    /**
+     * Marks a single edited field as changed since the last save.
+     * @param location location of the field in config json.
+     * @param entryKey key of the changed map entry, null if unknown.
+     * @return whether the field is stored in shards, see {@link ConfigShards}.
+     */
+    boolean markEdited(List<Object> location, @Nullable Object entryKey) {
+        this.dirty.set(true);
+        return (
+            this.shards != null && this.shards.markDirty(location, entryKey)
+        );
+    }
+
+    public boolean isDirty() {
+        return this.dirty.get();
+    }
+
+    /**
+     * Clears the dirty flag.
+     * @return whether the config was dirty.
+     */
+    boolean clearDirty() {
+        return this.dirty.getAndSet(false);
+    }
+
+    /**
+     * Marks a save after the save delay as scheduled.
+     * @return false if a save was already scheduled.
+     */
+    boolean schedule() {
+        return this.pending.compareAndSet(false, true);
+    }
+
+    /**
+     * Marks a compaction of the edit journal as scheduled.
+     * @return false if a compaction was already scheduled.
+     */
+    boolean scheduleCompaction() {
+        return this.pendingCompaction.compareAndSet(false, true);
+    }
+
+    /**
+     * Clears the scheduled save and compaction, as the whole config is being saved.
+     */
+    void unschedule() {
+        this.pending.set(false);
+        this.pendingCompaction.set(false);
+    }
+}
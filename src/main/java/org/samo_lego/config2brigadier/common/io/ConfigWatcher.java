@@ -0,0 +1,248 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static java.util.logging.Logger.getLogger;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.MOD_ID;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.util.ConfigDiff;
+
+/**
+ * Reloads configs when their file is changed on disk,
+ * see {@link IBrigadierConfigurator#watchConfigFile()}.
+ * <p>
+ * File events are debounced, as editors often write a file in several steps.
+ * The changed file is then parsed on a virtual thread and the new values are
+ * applied with {@link IBrigadierConfigurator#reload(IBrigadierConfigurator)}
+ * on the server thread, at the start of the next tick.
+ * Files whose content matches the last load or save are ignored,
+ * so saves made by the library don't trigger a reload.
+ */
+public final class ConfigWatcher {
+
+    /**
+     * Time to wait after the last file event before reloading.
+     */
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private static final boolean TICK_EVENTS =
+        FabricLoader.getInstance().isModLoaded("fabric-lifecycle-events-v1");
+
+    private static final Map<
+        Path,
+        WeakReference<IBrigadierConfigurator>
+    > WATCHED = new ConcurrentHashMap<>();
+    private static final Set<Path> DIRECTORIES = ConcurrentHashMap.newKeySet();
+    private static final Queue<Runnable> PENDING = new ConcurrentLinkedQueue<>();
+
+    @Nullable
+    private static WatchService service;
+
+    private ConfigWatcher() {}
+
+    /**
+     * Starts watching the file of the config.
+     * Config must be loaded with {@link IBrigadierConfigurator#loadConfigFile}.
+     * Calling this again for the same file replaces the watched config.
+     * @param config config to reload on file changes.
+     */
+    public static synchronized void watch(IBrigadierConfigurator config) {
+        ConfigStorage storage = ConfigStorage.get(config);
+        if (storage == null) {
+            getLogger(MOD_ID).warning(
+                "[Config2Brigadier] Cannot watch " +
+                    config.getClass().getSimpleName() +
+                    " as it wasn't loaded with loadConfigFile."
+            );
+            return;
+        }
+        if (!TICK_EVENTS) {
+            getLogger(MOD_ID).warning(
+                "[Config2Brigadier] Cannot watch " +
+                    storage.file().getFileName() +
+                    " as Fabric lifecycle events are not installed."
+            );
+            return;
+        }
+
+        Path file = storage.file().toAbsolutePath().normalize();
+        try {
+            if (service == null) {
+                start();
+            }
+            Path directory = file.getParent();
+            if (DIRECTORIES.add(directory)) {
+                directory.register(
+                    service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+                );
+            }
+            WATCHED.put(file, new WeakReference<>(config));
+        } catch (IOException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when trying to watch config: " +
+                    e.getMessage()
+            );
+        }
+    }
+
+    private static void start() throws IOException {
+        service = FileSystems.getDefault().newWatchService();
+        ServerTickEvents.START_SERVER_TICK.register(server -> {
+            Runnable task;
+            while ((task = PENDING.poll()) != null) {
+                task.run();
+            }
+        });
+
+        Thread thread = new Thread(
+            () -> run(service),
+            "Config2Brigadier Watcher"
+        );
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void run(WatchService service) {
+        // File -> time at which it should be reloaded
+        Map<Path, Long> due = new HashMap<>();
+        try {
+            while (true) {
+                long wait = due
+                    .values()
+                    .stream()
+                    .mapToLong(time -> time - System.currentTimeMillis())
+                    .min()
+                    .orElse(Long.MAX_VALUE);
+                WatchKey key = wait > 0
+                    ? service.poll(wait, TimeUnit.MILLISECONDS)
+                    : service.poll();
+
+                if (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Events were lost, check all files in the directory
+                            for (Path file : WATCHED.keySet()) {
+                                if (file.getParent().equals(directory)) {
+                                    debounce(due, file);
+                                }
+                            }
+                        } else {
+                            Path file = directory.resolve(
+                                (Path) event.context()
+                            );
+                            if (WATCHED.containsKey(file)) {
+                                debounce(due, file);
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+
+                long now = System.currentTimeMillis();
+                Iterator<Map.Entry<Path, Long>> iterator = due
+                    .entrySet()
+                    .iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Path, Long> entry = iterator.next();
+                    if (entry.getValue() <= now) {
+                        iterator.remove();
+                        Path file = entry.getKey();
+                        Thread.ofVirtual()
+                            .name("Config2Brigadier Reload")
+                            .start(() -> parse(file));
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    private static void debounce(Map<Path, Long> due, Path file) {
+        due.put(file, System.currentTimeMillis() + DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Parses the changed file and queues the reload for the next tick.
+     */
+    private static void parse(Path file) {
+        WeakReference<IBrigadierConfigurator> reference = WATCHED.get(file);
+        IBrigadierConfigurator config = reference != null
+            ? reference.get()
+            : null;
+        ConfigStorage storage = config != null
+            ? ConfigStorage.get(config)
+            : null;
+        if (storage == null) {
+            // Config was garbage collected
+            WATCHED.remove(file);
+            return;
+        }
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        ConfigLoader.Parsed<? extends IBrigadierConfigurator> parsed;
+        try {
+            parsed = ConfigLoader.parseFile(file, config.getClass(), storage);
+        } catch (IOException | JsonIOException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when trying to load config: " +
+                    e.getMessage()
+            );
+            return;
+        } catch (JsonParseException e) {
+            getLogger(MOD_ID).warning(
+                "[Config2Brigadier] Config " +
+                    file.getFileName() +
+                    " was changed but cannot be parsed, keeping current values: " +
+                    e.getMessage()
+            );
+            return;
+        }
+        if (parsed == null) {
+            // Saved by us or not changed
+            return;
+        }
+
+        IBrigadierConfigurator newConfig = parsed.config();
+        PENDING.add(() -> {
+            storage.loaded(parsed.contentHash());
+            ConfigDiff diff = ReloadScheduler.reload(config, newConfig);
+            if (diff.isEmpty()) {
+                return;
+            }
+            getLogger(MOD_ID).info(
+                "[Config2Brigadier] Reloaded " +
+                    file.getFileName() +
+                    " as it was changed, changed options: " +
+                    String.join(", ", diff.changedPaths())
+            );
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package org.samo_lego.config2brigadier.common.io;
+
+/**
+ * How hard {@link AtomicFileWriter} tries to get the config to disk
+ * before reporting the save as done.
+ */
+public enum FsyncPolicy {
+    /**
+     * Don't fsync, leave flushing to the operating system.
+     * Fastest, but the new content may be lost on power loss
+     * (the old file is still replaced atomically).
+     */
+    NONE,
+    /**
+     * Fsync the temporary file before it replaces the config file.
+     */
+    FILE,
+    /**
+     * Fsync the temporary file and the directory after the replace,
+     * so the rename itself survives power loss as well.
+     * Directory sync is skipped on platforms that don't support it.
+     */
+    FILE_AND_DIRECTORY;
+
+    public boolean syncFile() {
+        return this != NONE;
+    }
+
+    public boolean syncDirectory() {
+        return this == FILE_AND_DIRECTORY;
+    }
+}
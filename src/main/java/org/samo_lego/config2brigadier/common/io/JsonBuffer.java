@@ -0,0 +1,167 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+
+import com.google.gson.FormattingStyle;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable buffer configs are serialized into before being written.
+ * <p>
+ * {@link JsonWriter} output is collected in a growable char array and encoded
+ * to UTF-8 in bulk into a direct byte buffer, which can then be hashed and
+ * written to a file channel with a few large writes. One buffer is kept
+ * per thread and reused between saves, so saving doesn't allocate
+ * new buffers each time.
+ */
+public final class JsonBuffer extends Writer {
+
+    private static final int INITIAL_SIZE = 8192;
+    private static final ThreadLocal<JsonBuffer> BUFFERS = ThreadLocal.withInitial(
+        JsonBuffer::new
+    );
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private char[] chars = new char[INITIAL_SIZE];
+    private int length;
+    private ByteBuffer bytes = ByteBuffer.allocateDirect(INITIAL_SIZE);
+
+    private JsonBuffer() {}
+
+    /**
+     * Serializes the object with {@link org.samo_lego.config2brigadier.common.Config2Brigadier#GSON}
+     * into the buffer of the current thread.
+     * @param source object to serialize, e.g. config or its {@link com.google.gson.JsonElement} snapshot.
+     * @param compact whether to omit indentation and new lines.
+     * @return UTF-8 encoded json, valid until the next call from the same thread.
+     */
+    public static ByteBuffer serialize(Object source, boolean compact) {
+        return serialize(GSON, source, compact);
+    }
+
+    /**
+     * Serializes the object with given gson into the buffer of the current thread.
+     * @param gson gson to serialize with.
+     * @param source object to serialize.
+     * @param compact whether to omit indentation and new lines.
+     * @return UTF-8 encoded json, valid until the next call from the same thread.
+     */
+    public static ByteBuffer serialize(
+        Gson gson,
+        Object source,
+        boolean compact
+    ) {
+        return BUFFERS.get().write(gson, source, compact);
+    }
+
+    private ByteBuffer write(Gson gson, Object source, boolean compact) {
+        this.length = 0;
+        JsonWriter writer = new JsonWriter(this);
+        writer.setFormattingStyle(
+            compact ? FormattingStyle.COMPACT : FormattingStyle.PRETTY
+        );
+        gson.toJson(source, source.getClass(), writer);
+        return this.encode();
+    }
+
+    private ByteBuffer encode() {
+        int required = this.utf8Length();
+        if (required > this.bytes.capacity()) {
+            // Sized once, so the content is only encoded once
+            this.bytes = ByteBuffer.allocateDirect(
+                Math.max(required, this.bytes.capacity() * 2)
+            );
+        }
+
+        CharBuffer in = CharBuffer.wrap(this.chars, 0, this.length);
+        this.bytes.clear();
+        this.encoder.reset();
+        CoderResult result = this.encoder.encode(in, this.bytes, true);
+        if (!result.isOverflow()) {
+            result = this.encoder.flush(this.bytes);
+        }
+        if (result.isOverflow()) {
+            throw new IllegalStateException("Json buffer is too small");
+        }
+        this.bytes.flip();
+        return this.bytes;
+    }
+
+    /**
+     * Gets the length of the content encoded as UTF-8. Unpaired surrogates are
+     * counted as 3 bytes, so it's never less than the actual length.
+     */
+    private int utf8Length() {
+        long bytes = this.length;
+        for (int i = 0; i < this.length; ++i) {
+            char c = this.chars[i];
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (
+                Character.isHighSurrogate(c) &&
+                i + 1 < this.length &&
+                Character.isLowSurrogate(this.chars[i + 1])
+            ) {
+                // 4 bytes for the pair
+                bytes += 2;
+                ++i;
+            } else {
+                bytes += 2;
+            }
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Json is too large: " + bytes);
+        }
+        return (int) bytes;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = this.length + additional;
+        if (required > this.chars.length) {
+            this.chars = Arrays.copyOf(
+                this.chars,
+                Math.max(required, this.chars.length * 2)
+            );
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        this.ensureCapacity(1);
+        this.chars[this.length++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        this.ensureCapacity(len);
+        System.arraycopy(cbuf, off, this.chars, this.length, len);
+        this.length += len;
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        this.ensureCapacity(len);
+        str.getChars(off, off + len, this.chars, this.length);
+        this.length += len;
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,211 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.annotation.BinarySnapshot;
+import org.samo_lego.config2brigadier.common.util.ConfigFieldList;
+
+/**
+ * Binary snapshot of a json config file, see {@link BinarySnapshot}.
+ * <p>
+ * The snapshot holds the config fields in a compact binary form ({@link SnapshotCodec})
+ * that is read straight into the config object, skipping decoding and tokenizing the
+ * json text. It's keyed by the size, modification time and hash of the json file
+ * and by a hash of the config fields ({@link ConfigFieldList}) and their binary layout.
+ * If any of those differ, the snapshot is ignored and the json file is parsed instead.
+ * The json file is still read and hashed, as its size and modification time
+ * may stay the same after an edit (e.g. with coarse timestamps).
+ */
+public final class JsonSnapshot {
+
+    private static final String SUFFIX = ".snapshot";
+    private static final int MAGIC = 0x43324253; // C2BS
+    private static final int VERSION = 1;
+
+    private JsonSnapshot() {}
+
+    /**
+     * Config loaded from snapshot.
+     * @param config config object.
+     * @param contentHash hash of the json file the snapshot was made from.
+     * @param bytes size of the snapshot.
+     */
+    public record Loaded<C>(C config, byte[] contentHash, long bytes) {}
+
+    /**
+     * Gets the path of the snapshot for the json file.
+     * @param file json config file.
+     * @return snapshot path.
+     */
+    public static Path path(Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Loads the config from the snapshot of the file, if it's up to date.
+     * @param file json config file.
+     * @param configClass class of config object.
+     * @return loaded config or null if there's no valid snapshot.
+     */
+    @Nullable
+    public static <C extends IBrigadierConfigurator> Loaded<C> load(
+        Path file,
+        Class<C> configClass
+    ) {
+        Path snapshot = path(file);
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(
+                file,
+                BasicFileAttributes.class
+            );
+            ByteBuffer buffer;
+            try (
+                FileChannel channel = FileChannel.open(
+                    snapshot,
+                    StandardOpenOption.READ
+                )
+            ) {
+                buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                    // Read until the buffer is full
+                }
+                buffer.flip();
+            }
+
+            if (
+                buffer.getInt() != MAGIC ||
+                buffer.getInt() != VERSION ||
+                buffer.getLong() != attributes.size() ||
+                buffer.getLong() != attributes.lastModifiedTime().toMillis()
+            ) {
+                return null;
+            }
+            byte[] contentHash = new byte[buffer.get()];
+            buffer.get(contentHash);
+            if (
+                !Arrays.equals(
+                    contentHash,
+                    ConfigStorage.hash(ConfigLoader.readFully(file))
+                )
+            ) {
+                return null;
+            }
+            int layoutHash = buffer.getInt();
+            int schemaHash = buffer.getInt();
+            if (layoutHash != SnapshotCodec.describe(configClass).hashCode()) {
+                // Config class has changed
+                return null;
+            }
+
+            C config = configClass.cast(
+                SnapshotCodec.read(buffer, configClass)
+            );
+            if (config == null || schemaHash != schemaHash(config)) {
+                return null;
+            }
+            return new Loaded<>(config, contentHash, buffer.limit());
+        } catch (
+            IOException | ReflectiveOperationException | RuntimeException e
+        ) {
+            // Only a cache (might also be truncated), fall back to json
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot for the json file. Should be called right after
+     * the json file was written or verified to match the config.
+     * @param file json config file.
+     * @param contentHash hash of the json file content.
+     * @param config config object, matching the json file content.
+     * @throws IOException if writing fails.
+     */
+    public static void write(
+        Path file,
+        byte[] contentHash,
+        IBrigadierConfigurator config
+    ) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(
+            file,
+            BasicFileAttributes.class
+        );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(attributes.size());
+        out.writeLong(attributes.lastModifiedTime().toMillis());
+        out.writeByte(contentHash.length);
+        out.write(contentHash);
+        out.writeInt(SnapshotCodec.describe(config.getClass()).hashCode());
+        out.writeInt(schemaHash(config));
+        SnapshotCodec.write(out, config, config.getClass());
+        out.flush();
+
+        // It's only a cache, no need to sync or keep backups
+        AtomicFileWriter.write(
+            path(file),
+            FsyncPolicy.NONE,
+            0,
+            ByteBuffer.wrap(bytes.toByteArray())
+        );
+    }
+
+    /**
+     * Hashes names and types of the config fields, so snapshots
+     * are invalidated if config class changes.
+     * @param config config object.
+     * @return schema hash.
+     */
+    public static int schemaHash(IBrigadierConfigurator config) {
+        return schemaHash(ConfigFieldList.populateFields(null, config, config));
+    }
+
+    private static int schemaHash(ConfigFieldList fields) {
+        int hash = 1;
+        List<List<Field>> buckets = Arrays.asList(
+            fields.booleans(),
+            fields.integers(),
+            fields.floats(),
+            fields.doubles(),
+            fields.maps(),
+            fields.lists(),
+            fields.sets(),
+            fields.objects()
+        );
+        for (List<Field> bucket : buckets) {
+            for (Field field : bucket) {
+                hash = 31 * hash + field.getName().hashCode();
+                hash =
+                    31 * hash +
+                    field.getGenericType().getTypeName().hashCode();
+            }
+            hash = 31 * hash + bucket.size();
+        }
+        for (ConfigFieldList nested : fields.nestedFields()) {
+            Field parentField = nested.parentField();
+            if (parentField != null) {
+                hash = 31 * hash + parentField.getName().hashCode();
+            }
+            hash = 31 * hash + schemaHash(nested);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,36 @@
+package org.samo_lego.config2brigadier.common.io;
+
+/**
+ * Cost of loading a config file, see {@link ConfigStorage#lastLoad()}.
+ * @param bytes size of the file in bytes.
+ * @param readNanos time spent reading the file.
+ * @param parseNanos time spent decoding and parsing the content (or the whole snapshot load).
+ * @param snapshot whether the config was loaded from its binary snapshot.
+ */
+public record LoadStats(
+    long bytes,
+    long readNanos,
+    long parseNanos,
+    boolean snapshot
+) {
+    public long totalNanos() {
+        return this.readNanos + this.parseNanos;
+    }
+
+    @Override
+    public String toString() {
+        if (this.snapshot) {
+            return String.format(
+                "%d bytes from snapshot, loaded in %.2f ms",
+                this.bytes,
+                this.totalNanos() / 1_000_000.0
+            );
+        }
+        return String.format(
+            "%d bytes, read in %.2f ms, parsed in %.2f ms",
+            this.bytes,
+            this.readNanos / 1_000_000.0,
+            this.parseNanos / 1_000_000.0
+        );
+    }
+}
@@ -0,0 +1,252 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.util.ConfigDiff;
+import org.samo_lego.config2brigadier.common.util.WeakIdentityMap;
+
+/**
+ * Reloads configs for the reload command off the server thread.
+ * <p>
+ * The config file is read and parsed by a background reader, then the new values
+ * are applied on the server thread and the command sources are notified.
+ * Reload requests made while an earlier one is still waiting for the reader are
+ * merged with it. If the file cannot be parsed, current values are kept.
+ * Only changed fields are applied (see {@link ConfigDiff}) and reported,
+ * and nothing is saved if no field changed. Configs overriding
+ * {@link IBrigadierConfigurator#reload(IBrigadierConfigurator)} have it called
+ * on every reload.
+ * <p>
+ * Configs loaded with {@link IBrigadierConfigurator#loadConfigFile} are parsed
+ * directly from their file, the provided loader is only used for other configs.
+ */
+public final class ReloadScheduler {
+
+    private static final ExecutorService READER =
+        Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "Config2Brigadier Reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    /**
+     * Maximum number of changed fields listed in the feedback.
+     */
+    private static final int MAX_REPORTED = 10;
+
+    /**
+     * Requests that haven't been picked up by the reader yet.
+     */
+    private static final WeakIdentityMap<
+        IBrigadierConfigurator,
+        Request
+    > WAITING = new WeakIdentityMap<>();
+
+    /**
+     * Whether the config class overrides
+     * {@link IBrigadierConfigurator#reload(IBrigadierConfigurator)}.
+     */
+    private static final ClassValue<Boolean> OVERRIDES_RELOAD =
+        new ClassValue<>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                try {
+                    return (
+                        type
+                            .getMethod("reload", IBrigadierConfigurator.class)
+                            .getDeclaringClass() !=
+                        IBrigadierConfigurator.class
+                    );
+                } catch (NoSuchMethodException e) {
+                    return false;
+                }
+            }
+        };
+
+    private ReloadScheduler() {}
+
+    /**
+     * Command sources waiting for the same reload.
+     */
+    private static final class Request {
+
+        private final List<CommandSourceStack> sources = new ArrayList<>();
+    }
+
+    /**
+     * Requests the config to be reloaded.
+     * @param config config to reload.
+     * @param newConfigLoader loader for the new config object,
+     *                        not called for configs loaded from a file.
+     * @param source command source to notify when the config is reloaded.
+     */
+    public static void request(
+        IBrigadierConfigurator config,
+        Supplier<? extends IBrigadierConfigurator> newConfigLoader,
+        CommandSourceStack source
+    ) {
+        Request request;
+        synchronized (WAITING) {
+            request = WAITING.get(config);
+            if (request != null) {
+                request.sources.add(source);
+                return;
+            }
+            request = new Request();
+            request.sources.add(source);
+            WAITING.put(config, request);
+        }
+
+        Request submitted = request;
+        MinecraftServer server = source.getServer();
+        READER.execute(() -> load(config, newConfigLoader, server, submitted));
+    }
+
+    private static void load(
+        IBrigadierConfigurator config,
+        Supplier<? extends IBrigadierConfigurator> newConfigLoader,
+        MinecraftServer server,
+        Request request
+    ) {
+        synchronized (WAITING) {
+            // Later requests need to read the file again
+            WAITING.remove(config, request);
+        }
+
+        ConfigStorage storage = ConfigStorage.get(config);
+        IBrigadierConfigurator newConfig = null;
+        byte[] contentHash = null;
+        String error = null;
+        try {
+            if (storage != null && Files.exists(storage.file())) {
+                ConfigLoader.Parsed<? extends IBrigadierConfigurator> parsed =
+                    ConfigLoader.parseFile(storage.file(), config.getClass());
+                newConfig = parsed.config();
+                contentHash = parsed.contentHash();
+            } else {
+                newConfig = newConfigLoader.get();
+            }
+        } catch (IOException | JsonParseException e) {
+            error = e.getMessage();
+        } catch (RuntimeException e) {
+            error = e.toString();
+        }
+
+        IBrigadierConfigurator loaded = newConfig;
+        byte[] loadedHash = contentHash;
+        String loadError = error;
+        server.execute(() -> {
+            List<CommandSourceStack> sources;
+            synchronized (WAITING) {
+                sources = List.copyOf(request.sources);
+            }
+            List<String> changed = loaded != null
+                ? apply(config, storage, loaded, loadedHash, server)
+                : List.of();
+            for (CommandSourceStack source : sources) {
+                sendResult(source, changed, loadError);
+            }
+        });
+    }
+
+    /**
+     * Applies the reloaded values.
+     * @return changed field paths.
+     */
+    private static List<String> apply(
+        IBrigadierConfigurator config,
+        @Nullable ConfigStorage storage,
+        IBrigadierConfigurator newConfig,
+        @Nullable byte[] contentHash,
+        MinecraftServer server
+    ) {
+        if (storage != null && contentHash != null) {
+            storage.loaded(contentHash);
+        }
+        ConfigDiff diff = reload(config, newConfig);
+        if (diff.isEmpty() && !OVERRIDES_RELOAD.get(config.getClass())) {
+            // Nothing to apply or save
+            return List.of();
+        }
+
+        // Only writes the file if it differs, e.g. it's missing new fields
+        SaveScheduler.request(config, server);
+        return diff.changedPaths();
+    }
+
+    /**
+     * Loads the values of the new config object into the config.
+     * The difference is computed once and applied directly, unless the config
+     * overrides {@link IBrigadierConfigurator#reload(IBrigadierConfigurator)},
+     * which is then called instead, even if no field differs.
+     * @return difference between the configs.
+     */
+    static ConfigDiff reload(
+        IBrigadierConfigurator config,
+        IBrigadierConfigurator newConfig
+    ) {
+        ConfigDiff diff = ConfigDiff.compute(config, newConfig);
+        if (OVERRIDES_RELOAD.get(config.getClass())) {
+            // May have its own logic for unchanged values
+            config.reload(newConfig);
+        } else if (!diff.isEmpty()) {
+            config.applyDiff(config, diff);
+        }
+        return diff;
+    }
+
+    private static void sendResult(
+        CommandSourceStack source,
+        List<String> changed,
+        @Nullable String error
+    ) {
+        if (error != null) {
+            source.sendFailure(
+                Component.translatable(
+                    "config2brigadier.command.reload.failed",
+                    error
+                ).withStyle(ChatFormatting.RED)
+            );
+        } else if (changed.isEmpty()) {
+            source.sendSuccess(
+                () ->
+                    Component.translatable(
+                        "config2brigadier.command.reload.unchanged"
+                    ).withStyle(ChatFormatting.GREEN),
+                false
+            );
+        } else {
+            String paths = String.join(
+                ", ",
+                changed.subList(0, Math.min(changed.size(), MAX_REPORTED))
+            );
+            if (changed.size() > MAX_REPORTED) {
+                paths += ", ...";
+            }
+            String changedPaths = paths;
+            source.sendSuccess(
+                () ->
+                    Component.translatable(
+                        "config2brigadier.command.reload.changed",
+                        changed.size(),
+                        Component.literal(changedPaths).withStyle(
+                            ChatFormatting.YELLOW
+                        )
+                    ).withStyle(ChatFormatting.GREEN),
+                false
+            );
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static java.util.logging.Logger.getLogger;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.MOD_ID;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.annotation.EditJournal;
+import org.samo_lego.config2brigadier.common.annotation.ShardedStorage;
+
+/**
+ * Saves configs off the server thread.
+ * <p>
+ * Edits only mark the config dirty. Once the save delay of the config
+ * ({@link IBrigadierConfigurator#getSaveDelay()}) passes, a JSON snapshot
+ * is taken on the main thread and written by a single background writer,
+ * so all edits within the delay end up in one write.
+ * Fields annotated with {@link ShardedStorage} are left out of the snapshot,
+ * except for their shards that were changed. They are saved after the save delay
+ * even if the config has an edit journal.
+ * <p>
+ * Edits of configs annotated with {@link EditJournal} are appended to the
+ * journal by the same writer instead, and the whole config is only written once
+ * the journal gets too long or the compaction delay passes.
+ * <p>
+ * Only configs loaded with {@link IBrigadierConfigurator#loadConfigFile} that opt in
+ * with {@link IBrigadierConfigurator#useScheduledSaving()} (or are annotated with
+ * {@link EditJournal} or have {@link ShardedStorage} fields) are saved this way,
+ * as the file is known. For other configs, {@link IBrigadierConfigurator#save()}
+ * is called directly.
+ * <p>
+ * Pending saves are snapshotted when the server is stopping, on the server thread.
+ * On JVM shutdown, only the writes of snapshots that were already taken are awaited.
+ */
+public final class SaveScheduler {
+
+    private static final ScheduledExecutorService WRITER =
+        Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Config2Brigadier Saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(SaveScheduler::awaitWrites, "Config2Brigadier Shutdown")
+        );
+        if (
+            FabricLoader.getInstance().isModLoaded("fabric-lifecycle-events-v1")
+        ) {
+            registerStoppingEvent();
+        }
+    }
+
+    private SaveScheduler() {}
+
+    private static void registerStoppingEvent() {
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> flushAll());
+    }
+
+    /**
+     * Requests the config to be saved.
+     * @param config config to save.
+     * @param mainThread executor of the thread that edits the config (e.g. the server),
+     *                   used to take the snapshot.
+     */
+    public static void request(
+        IBrigadierConfigurator config,
+        Executor mainThread
+    ) {
+        ConfigStorage storage = scheduledStorage(config);
+        if (storage == null) {
+            config.save();
+            return;
+        }
+
+        storage.markDirty();
+        schedule(config, storage, mainThread);
+    }
+
+    /**
+     * Whether the config is saved by the scheduler rather than by {@link IBrigadierConfigurator#save()}.
+     * @param config config object.
+     * @return true if saves are scheduled.
+     */
+    public static boolean isScheduled(IBrigadierConfigurator config) {
+        return scheduledStorage(config) != null;
+    }
+
+    /**
+     * Gets the storage of the config if it's saved by the scheduler.
+     */
+    @Nullable
+    private static ConfigStorage scheduledStorage(
+        IBrigadierConfigurator config
+    ) {
+        ConfigStorage storage = ConfigStorage.get(config);
+        if (
+            storage != null &&
+            (config.useScheduledSaving() ||
+                storage.journal() != null ||
+                storage.hasShards())
+        ) {
+            return storage;
+        }
+        return null;
+    }
+
+    /**
+     * Schedules the dirty config to be written after its save delay,
+     * or right away if it has an edit journal.
+     */
+    private static void schedule(
+        IBrigadierConfigurator config,
+        ConfigStorage storage,
+        Executor mainThread
+    ) {
+        if (storage.journal() != null) {
+            // Can't be journaled and a compaction may be far away, save now
+            mainThread.execute(() -> snapshotAndWrite(config, storage));
+            return;
+        }
+        scheduleSave(config, storage, mainThread);
+    }
+
+    /**
+     * Schedules the dirty config to be written after its save delay,
+     * even if it has an edit journal.
+     */
+    private static void scheduleSave(
+        IBrigadierConfigurator config,
+        ConfigStorage storage,
+        Executor mainThread
+    ) {
+        if (storage.schedule()) {
+            WRITER.schedule(
+                () ->
+                    mainThread.execute(() -> snapshotAndWrite(config, storage)),
+                Math.max(0, config.getSaveDelay()),
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Records an edited field of the config.
+     * For configs annotated with {@link EditJournal}, the new value is appended to the
+     * journal, other configs are saved as with {@link #request(IBrigadierConfigurator, Executor)}.
+     * Fields annotated with {@link ShardedStorage} only have the changed shards written.
+     * Must be called from the thread that edits the config.
+     * @param config edited config.
+     * @param mainThread executor of the thread that edits the config (e.g. the server).
+     * @param location location of the field in config json, see {@link ConfigJournal#entry(List, Object)}.
+     *                 If null, the whole config is saved.
+     * @param value new value of the field.
+     * @param edit edit of the single map, list or set entry that was changed, null if the field
+     *             was changed as a whole. Only the entry is journaled and only its shard is written.
+     */
+    public static void record(
+        IBrigadierConfigurator config,
+        Executor mainThread,
+        @Nullable List<Object> location,
+        @Nullable Object value,
+        @Nullable ConfigJournal.EntryEdit edit
+    ) {
+        ConfigStorage storage = scheduledStorage(config);
+        if (storage == null || location == null) {
+            request(config, mainThread);
+            return;
+        }
+        ConfigJournal journal = storage.journal();
+        Object entryKey = edit != null ? edit.mapKey() : null;
+        if (storage.markEdited(location, entryKey)) {
+            // Sharded fields are written per shard instead of journaled,
+            // all edits within the save delay with one write
+            scheduleSave(config, storage, mainThread);
+            return;
+        }
+        if (journal == null) {
+            schedule(config, storage, mainThread);
+            return;
+        }
+
+        // Serialized now, the value may change before the writer gets to it
+        JsonObject entry = edit != null
+            ? ConfigJournal.entry(location, edit)
+            : ConfigJournal.entry(location, value);
+        WRITER.execute(() -> {
+            try {
+                journal.append(entry, config.getFsyncPolicy());
+                if (!journal.shouldCompact()) {
+                    return;
+                }
+            } catch (IOException e) {
+                getLogger(MOD_ID).severe(
+                    "[Config2Brigadier] Problem occurred when writing config journal: " +
+                        e.getMessage()
+                );
+            }
+            // Journal is too long or cannot be written, save the whole config
+            mainThread.execute(() -> snapshotAndWrite(config, storage));
+        });
+        if (storage.scheduleCompaction()) {
+            WRITER.schedule(
+                () ->
+                    mainThread.execute(() -> snapshotAndWrite(config, storage)),
+                Math.max(0, journal.compactDelay()),
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Saves the config now if it has pending changes, waiting for the write to finish.
+     * Should be called from the thread that edits the config.
+     * @param config config to flush.
+     */
+    public static void flush(IBrigadierConfigurator config) {
+        ConfigStorage storage = ConfigStorage.get(config);
+        if (storage == null || !storage.clearDirty()) {
+            return;
+        }
+
+        ConfigStorage.Snapshot snapshot = storage.snapshot(config);
+        try {
+            // Goes through the writer as well, to stay ordered after earlier writes
+            WRITER.submit(() -> write(config, storage, snapshot)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when saving config: " +
+                    e.getCause()
+            );
+        }
+    }
+
+    /**
+     * Flushes all configs with pending changes.
+     * Should be called from the thread that edits the configs.
+     */
+    public static void flushAll() {
+        for (IBrigadierConfigurator config : ConfigStorage.configs()) {
+            flush(config);
+        }
+    }
+
+    /**
+     * Runs the read on the writer and waits for it, so it doesn't see the files
+     * of a config in the middle of a write, e.g. the file after a compaction
+     * together with the journal before it was cleared.
+     * Must not be called from the thread that edits the config.
+     * @param read read to run.
+     * @return result of the read.
+     * @throws IOException if the read fails or is interrupted.
+     */
+    static <T> T awaitOnWriter(Callable<T> read) throws IOException {
+        try {
+            return WRITER.submit(read).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading config");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Waits for the writes that were already submitted, e.g. on shutdown.
+     * Configs aren't snapshotted here, as they may be edited on another thread.
+     */
+    private static void awaitWrites() {
+        try {
+            WRITER.submit(() -> {}).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when finishing config saves: " +
+                    e
+            );
+        }
+    }
+
+    private static void snapshotAndWrite(
+        IBrigadierConfigurator config,
+        ConfigStorage storage
+    ) {
+        storage.unschedule();
+        if (!storage.clearDirty()) {
+            // Already flushed
+            return;
+        }
+        ConfigStorage.Snapshot snapshot = storage.snapshot(config);
+        WRITER.execute(() -> write(config, storage, snapshot));
+    }
+
+    private static void write(
+        IBrigadierConfigurator config,
+        ConfigStorage storage,
+        ConfigStorage.Snapshot snapshot
+    ) {
+        try {
+            storage.write(config, snapshot.json(), snapshot.shards());
+        } catch (IOException | JsonIOException e) {
+            getLogger(MOD_ID).severe(
+                "[Config2Brigadier] Problem occurred when saving config: " +
+                    e.getMessage()
+            );
+        }
+    }
+}
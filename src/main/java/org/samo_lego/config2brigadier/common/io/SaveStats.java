@@ -0,0 +1,30 @@
+package org.samo_lego.config2brigadier.common.io;
+
+/**
+ * Cost of a config save, see {@link ConfigStorage#lastSave()}.
+ * @param bytes size of the serialized config in bytes.
+ * @param serializeNanos time spent serializing the config.
+ * @param writeNanos time spent writing the file, 0 if the write was skipped.
+ * @param written whether the file was written, false if the content was unchanged.
+ */
+public record SaveStats(
+    long bytes,
+    long serializeNanos,
+    long writeNanos,
+    boolean written
+) {
+    @Override
+    public String toString() {
+        return String.format(
+            "%d bytes, serialized in %.2f ms, %s",
+            this.bytes,
+            this.serializeNanos / 1_000_000.0,
+            this.written
+                ? String.format(
+                    "written in %.2f ms",
+                    this.writeNanos / 1_000_000.0
+                )
+                : "unchanged"
+        );
+    }
+}
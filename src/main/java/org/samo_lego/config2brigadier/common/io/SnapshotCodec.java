@@ -0,0 +1,476 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+
+import com.google.gson.annotations.JsonAdapter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.LazySection;
+import org.samo_lego.config2brigadier.common.util.FieldAccessor;
+
+/**
+ * Binary encoding of config objects used by {@link JsonSnapshot}.
+ * <p>
+ * Values are written by their declared type and read straight back into
+ * new objects, without going through json or Gson's reflective adapters.
+ * Primitives, strings, enums, collections, maps and plain classes are supported,
+ * following the same field rules as Gson (non-static, non-transient fields).
+ * Null fields and map values are read as Gson would read the json without them.
+ * Anything else (e.g. classes with {@link JsonAdapter} or {@link LazySection}s,
+ * which stay unloaded) is embedded as json and handled by Gson.
+ */
+final class SnapshotCodec {
+
+    private static final byte NULL = 0;
+    private static final byte VALUE = 1;
+    private static final byte JSON = 2;
+
+    /**
+     * Layouts of plain classes, null if class isn't supported.
+     */
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.create(type);
+        }
+    };
+
+    private SnapshotCodec() {}
+
+    /**
+     * Fields of a plain class, in declaration order (superclass fields last).
+     * @param constructor no-args constructor.
+     * @param fields serialized fields.
+     * @param accessors accessors for the fields.
+     */
+    private record Layout(
+        Constructor<?> constructor,
+        Field[] fields,
+        FieldAccessor[] accessors
+    ) {
+        @Nullable
+        private static Layout create(Class<?> type) {
+            if (
+                type.isInterface() ||
+                type.isArray() ||
+                type.isEnum() ||
+                type.isRecord() ||
+                type.isPrimitive() ||
+                type.isAnonymousClass() ||
+                type.isLocalClass() ||
+                Modifier.isAbstract(type.getModifiers()) ||
+                type.isAnnotationPresent(JsonAdapter.class) ||
+                type == LazySection.class ||
+                type.getName().startsWith("java.")
+            ) {
+                return null;
+            }
+
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (
+                        Modifier.isStatic(modifiers) ||
+                        Modifier.isTransient(modifiers) ||
+                        field.isSynthetic()
+                    ) {
+                        continue;
+                    }
+                    if (
+                        field.isAnnotationPresent(JsonAdapter.class) ||
+                        !isConcrete(field.getGenericType())
+                    ) {
+                        return null;
+                    }
+                    fields.add(field);
+                }
+            }
+
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                FieldAccessor[] accessors = new FieldAccessor[fields.size()];
+                for (int i = 0; i < accessors.length; ++i) {
+                    Field field = fields.get(i);
+                    field.setAccessible(true);
+                    accessors[i] = FieldAccessor.stored(field);
+                }
+                return new Layout(
+                    constructor,
+                    fields.toArray(Field[]::new),
+                    accessors
+                );
+            } catch (NoSuchMethodException | RuntimeException e) {
+                // No no-args constructor or inaccessible
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Gets a descriptor of the binary layout of the type,
+     * which changes if any of the (nested) serialized fields change.
+     * @param type type to describe.
+     * @return layout descriptor.
+     */
+    static String describe(Type type) {
+        StringBuilder builder = new StringBuilder();
+        describe(type, builder, new HashSet<>());
+        return builder.toString();
+    }
+
+    private static void describe(
+        Type type,
+        StringBuilder builder,
+        Set<Type> visited
+    ) {
+        builder.append(type.getTypeName());
+        if (type instanceof ParameterizedType parameterized) {
+            for (Type argument : parameterized.getActualTypeArguments()) {
+                builder.append('<');
+                describe(argument, builder, visited);
+                builder.append('>');
+            }
+        } else if (type instanceof Class<?> clazz && visited.add(clazz)) {
+            Layout layout = LAYOUTS.get(clazz);
+            if (layout != null) {
+                builder.append('{');
+                for (Field field : layout.fields()) {
+                    builder.append(field.getName()).append(':');
+                    describe(field.getGenericType(), builder, visited);
+                    builder.append(';');
+                }
+                builder.append('}');
+            }
+        }
+    }
+
+    /**
+     * Writes the value.
+     * @param out output to write to.
+     * @param value value to write.
+     * @param type declared type of the value.
+     * @throws IOException if writing fails.
+     */
+    static void write(DataOutputStream out, @Nullable Object value, Type type)
+        throws IOException {
+        Class<?> raw = rawType(type);
+        if (raw.isPrimitive()) {
+            writePrimitive(out, value, raw);
+            return;
+        }
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        if (isLeaf(raw)) {
+            out.writeByte(VALUE);
+            writeLeaf(out, value, raw);
+        } else if (
+            Collection.class.isAssignableFrom(raw) &&
+            value instanceof Collection<?> collection &&
+            canCreate(raw, List.class, Set.class) &&
+            type instanceof ParameterizedType parameterized
+        ) {
+            Type elementType = parameterized.getActualTypeArguments()[0];
+            out.writeByte(VALUE);
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                write(out, element, elementType);
+            }
+        } else if (
+            Map.class.isAssignableFrom(raw) &&
+            value instanceof Map<?, ?> map &&
+            canCreate(raw, Map.class) &&
+            type instanceof ParameterizedType parameterized &&
+            isLeaf(rawType(parameterized.getActualTypeArguments()[0]))
+        ) {
+            Type keyType = parameterized.getActualTypeArguments()[0];
+            Type valueType = parameterized.getActualTypeArguments()[1];
+            // Gson leaves out null values, so they aren't loaded from json either
+            boolean skipNulls = !GSON.serializeNulls();
+            int size = 0;
+            for (Object entryValue : map.values()) {
+                if (entryValue != null || !skipNulls) {
+                    ++size;
+                }
+            }
+            out.writeByte(VALUE);
+            out.writeInt(size);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (entry.getValue() == null && skipNulls) {
+                    continue;
+                }
+                write(out, entry.getKey(), keyType);
+                write(out, entry.getValue(), valueType);
+            }
+        } else if (value.getClass() == raw && LAYOUTS.get(raw) != null) {
+            Layout layout = LAYOUTS.get(raw);
+            out.writeByte(VALUE);
+            for (FieldAccessor accessor : layout.accessors()) {
+                write(out, accessor.get(value), accessor.genericType());
+            }
+        } else {
+            out.writeByte(JSON);
+            writeString(out, GSON.toJson(value, type));
+        }
+    }
+
+    /**
+     * Reads the value.
+     * @param in input to read from.
+     * @param type declared type of the value.
+     * @return read value.
+     */
+    @Nullable
+    static Object read(ByteBuffer in, Type type)
+        throws ReflectiveOperationException {
+        Class<?> raw = rawType(type);
+        if (raw.isPrimitive()) {
+            return readPrimitive(in, raw);
+        }
+
+        byte tag = in.get();
+        if (tag == NULL) {
+            return null;
+        }
+        if (tag == JSON) {
+            return GSON.fromJson(readString(in), type);
+        }
+
+        if (isLeaf(raw)) {
+            return readLeaf(in, raw);
+        }
+        if (Collection.class.isAssignableFrom(raw)) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type elementType = parameterized.getActualTypeArguments()[0];
+            int size = in.getInt();
+            Collection<Object> collection = createCollection(raw, size);
+            for (int i = 0; i < size; ++i) {
+                collection.add(read(in, elementType));
+            }
+            return collection;
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type[] arguments = parameterized.getActualTypeArguments();
+            int size = in.getInt();
+            Map<Object, Object> map = createMap(raw, size);
+            for (int i = 0; i < size; ++i) {
+                Object key = read(in, arguments[0]);
+                map.put(key, read(in, arguments[1]));
+            }
+            return map;
+        }
+
+        Layout layout = LAYOUTS.get(raw);
+        if (layout == null) {
+            throw new IllegalStateException("Unsupported snapshot type " + type);
+        }
+        Object value = layout.constructor().newInstance();
+        Field[] fields = layout.fields();
+        FieldAccessor[] accessors = layout.accessors();
+        for (int i = 0; i < fields.length; ++i) {
+            Object fieldValue = read(in, accessors[i].genericType());
+            if (fieldValue == null && !GSON.serializeNulls()) {
+                // Not in the json, so Gson keeps the default value
+                continue;
+            }
+            if (Modifier.isFinal(fields[i].getModifiers())) {
+                // Gson sets final fields as well
+                fields[i].set(value, fieldValue);
+            } else {
+                accessors[i].set(value, fieldValue);
+            }
+        }
+        return value;
+    }
+
+    private static boolean isLeaf(Class<?> raw) {
+        return (
+            raw == String.class ||
+            raw == Boolean.class ||
+            raw == Integer.class ||
+            raw == Long.class ||
+            raw == Float.class ||
+            raw == Double.class ||
+            raw == Short.class ||
+            raw == Byte.class ||
+            raw == Character.class ||
+            raw.isEnum()
+        );
+    }
+
+    private static void writeLeaf(
+        DataOutputStream out,
+        Object value,
+        Class<?> raw
+    ) throws IOException {
+        if (raw == String.class) {
+            writeString(out, (String) value);
+        } else if (raw.isEnum()) {
+            writeString(out, ((Enum<?>) value).name());
+        } else {
+            writePrimitive(out, value, unbox(raw));
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object readLeaf(ByteBuffer in, Class<?> raw) {
+        if (raw == String.class) {
+            return readString(in);
+        }
+        if (raw.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) raw, readString(in));
+        }
+        return readPrimitive(in, unbox(raw));
+    }
+
+    private static void writePrimitive(
+        DataOutputStream out,
+        Object value,
+        Class<?> type
+    ) throws IOException {
+        if (type == boolean.class) out.writeBoolean((Boolean) value);
+        else if (type == int.class) out.writeInt((Integer) value);
+        else if (type == long.class) out.writeLong((Long) value);
+        else if (type == float.class) out.writeFloat((Float) value);
+        else if (type == double.class) out.writeDouble((Double) value);
+        else if (type == short.class) out.writeShort((Short) value);
+        else if (type == byte.class) out.writeByte((Byte) value);
+        else out.writeChar((Character) value);
+    }
+
+    private static Object readPrimitive(ByteBuffer in, Class<?> type) {
+        if (type == boolean.class) return in.get() != 0;
+        if (type == int.class) return in.getInt();
+        if (type == long.class) return in.getLong();
+        if (type == float.class) return in.getFloat();
+        if (type == double.class) return in.getDouble();
+        if (type == short.class) return in.getShort();
+        if (type == byte.class) return in.get();
+        return in.getChar();
+    }
+
+    private static Class<?> unbox(Class<?> boxed) {
+        if (boxed == Boolean.class) return boolean.class;
+        if (boxed == Integer.class) return int.class;
+        if (boxed == Long.class) return long.class;
+        if (boxed == Float.class) return float.class;
+        if (boxed == Double.class) return double.class;
+        if (boxed == Short.class) return short.class;
+        if (boxed == Byte.class) return byte.class;
+        return char.class;
+    }
+
+    /**
+     * Whether the collection or map of declared type can be created on read.
+     * Interfaces get the same implementations as Gson uses.
+     */
+    private static boolean canCreate(Class<?> raw, Class<?>... interfaces) {
+        for (Class<?> supported : interfaces) {
+            if (raw == supported) {
+                return true;
+            }
+        }
+        if (raw == Collection.class) {
+            return true;
+        }
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            return false;
+        }
+        try {
+            raw.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> createCollection(Class<?> raw, int size)
+        throws ReflectiveOperationException {
+        if (raw == List.class || raw == Collection.class) {
+            return new ArrayList<>(size);
+        }
+        if (raw == Set.class) {
+            return new LinkedHashSet<>();
+        }
+        return (Collection<Object>) raw.getConstructor().newInstance();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> createMap(Class<?> raw, int size)
+        throws ReflectiveOperationException {
+        if (raw == Map.class) {
+            return LinkedHashMap.newLinkedHashMap(size);
+        }
+        return (Map<Object, Object>) raw.getConstructor().newInstance();
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class<?> clazz) {
+            return clazz;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            return (Class<?>) parameterized.getRawType();
+        }
+        // Type variables and wildcards are not supported
+        return Object.class;
+    }
+
+    /**
+     * Whether the type has no type variables or wildcards.
+     */
+    private static boolean isConcrete(Type type) {
+        if (type instanceof Class<?>) {
+            return true;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            for (Type argument : parameterized.getActualTypeArguments()) {
+                if (!isConcrete(argument)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static void writeString(DataOutputStream out, String value)
+        throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        String value = new String(
+            in.array(),
+            in.arrayOffset() + in.position(),
+            length,
+            StandardCharsets.UTF_8
+        );
+        in.position(in.position() + length);
+        return value;
+    }
+}
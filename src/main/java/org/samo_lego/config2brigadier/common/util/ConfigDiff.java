@@ -0,0 +1,332 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.LazySection;
+
+/**
+ * Structural difference between a live config and a reloaded one.
+ * <p>
+ * Covers the public, non-static and non-final fields of the config,
+ * recursing into nested objects (see {@link IBrigadierConfigurator#reloadValues(Object, Object)}).
+ * Entries of maps and collections are compared the same way, so objects without
+ * their own {@code equals} aren't reported as changed when their fields are equal.
+ * Applying the diff only writes the fields that differ. Changed collections
+ * are updated in place where possible, so references to them stay valid.
+ * {@link LazySection}s that weren't loaded yet are compared by their json
+ * and replaced as a whole.
+ */
+public final class ConfigDiff {
+
+    /**
+     * Accessors of the reloadable fields per class.
+     */
+    private static final ClassValue<List<FieldAccessor>> FIELDS =
+        new ClassValue<>() {
+            @Override
+            protected List<FieldAccessor> computeValue(Class<?> type) {
+                List<FieldAccessor> fields = new ArrayList<>();
+                for (Field field : type.getFields()) {
+                    int modifiers = field.getModifiers();
+                    if (
+                        !Modifier.isFinal(modifiers) &&
+                        !Modifier.isStatic(modifiers)
+                    ) {
+                        fields.add(FieldAccessor.stored(field));
+                    }
+                }
+                return List.copyOf(fields);
+            }
+        };
+
+    private final List<Change> changes;
+
+    private ConfigDiff(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Single changed field.
+     * @param path dotted path of the field, e.g. {@code nested.message}.
+     * @param parent object containing the field.
+     * @param accessor accessor of the field.
+     * @param oldValue current value.
+     * @param newValue reloaded value.
+     */
+    public record Change(
+        String path,
+        Object parent,
+        FieldAccessor accessor,
+        @Nullable Object oldValue,
+        @Nullable Object newValue
+    ) {}
+
+    /**
+     * Compares the config with the reloaded one.
+     * @param config live config object.
+     * @param newConfig reloaded config object.
+     * @return differences, empty if configs are equal.
+     */
+    public static ConfigDiff compute(Object config, Object newConfig) {
+        List<Change> changes = new ArrayList<>();
+        compute("", config, newConfig, changes);
+        return new ConfigDiff(Collections.unmodifiableList(changes));
+    }
+
+    private static void compute(
+        String prefix,
+        Object config,
+        Object newConfig,
+        List<Change> changes
+    ) {
+        for (FieldAccessor accessor : FIELDS.get(config.getClass())) {
+            Object value = accessor.get(config);
+            Object newValue = accessor.get(newConfig);
+            String path = prefix + accessor.name();
+
+            if (
+                value instanceof LazySection<?> section &&
+                section.isLoaded() &&
+                newValue instanceof LazySection<?> newSection
+            ) {
+                // Loaded section may be referenced, its value is updated instead
+                accessor = FieldAccessor.of(accessor.field());
+                value = section.get();
+                newValue = newSection.get();
+            }
+
+            if (
+                value != null &&
+                newValue != null &&
+                value.getClass() == newValue.getClass() &&
+                !isValue(value.getClass())
+            ) {
+                compute(path + ".", value, newValue, changes);
+            } else if (!deepEquals(value, newValue)) {
+                changes.add(
+                    new Change(path, config, accessor, value, newValue)
+                );
+            }
+        }
+    }
+
+    /**
+     * Compares the values structurally. Objects without their own {@code equals}
+     * (e.g. values of a map) are compared per field, the same as nested objects.
+     * @return whether the values are equal.
+     */
+    private static boolean deepEquals(
+        @Nullable Object value,
+        @Nullable Object newValue
+    ) {
+        if (Objects.deepEquals(value, newValue)) {
+            return true;
+        }
+        if (value == null || newValue == null) {
+            return false;
+        }
+        if (
+            value instanceof Map<?, ?> map &&
+            newValue instanceof Map<?, ?> newMap
+        ) {
+            if (map.size() != newMap.size()) {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object key = entry.getKey();
+                if (
+                    !newMap.containsKey(key) ||
+                    !deepEquals(entry.getValue(), newMap.get(key))
+                ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (
+            value instanceof List<?> list &&
+            newValue instanceof List<?> newList
+        ) {
+            if (list.size() != newList.size()) {
+                return false;
+            }
+            Iterator<?> newElements = newList.iterator();
+            for (Object element : list) {
+                if (!deepEquals(element, newElements.next())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (
+            value instanceof Collection<?> collection &&
+            newValue instanceof Collection<?> newCollection
+        ) {
+            if (collection.size() != newCollection.size()) {
+                return false;
+            }
+            for (Object element : collection) {
+                if (!contains(newCollection, element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (
+            value.getClass() != newValue.getClass() ||
+            isValue(value.getClass())
+        ) {
+            return false;
+        }
+        for (FieldAccessor accessor : FIELDS.get(value.getClass())) {
+            if (!deepEquals(accessor.get(value), accessor.get(newValue))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the collection contains a structurally equal element.
+     */
+    private static boolean contains(
+        Collection<?> collection,
+        @Nullable Object element
+    ) {
+        if (collection.contains(element)) {
+            return true;
+        }
+        if (element == null || isValue(element.getClass())) {
+            // Equals of value types is already structural
+            return false;
+        }
+        for (Object other : collection) {
+            if (deepEquals(element, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether objects of the type are compared as a whole instead of per field.
+     */
+    private static boolean isValue(Class<?> type) {
+        return (
+            type == String.class ||
+            type.isEnum() ||
+            type.isArray() ||
+            type.isRecord() ||
+            type == LazySection.class ||
+            Number.class.isAssignableFrom(type) ||
+            type == Boolean.class ||
+            type == Character.class ||
+            Collection.class.isAssignableFrom(type) ||
+            Map.class.isAssignableFrom(type) ||
+            type.getName().startsWith("java.")
+        );
+    }
+
+    public boolean isEmpty() {
+        return this.changes.isEmpty();
+    }
+
+    public List<Change> changes() {
+        return this.changes;
+    }
+
+    /**
+     * Gets the dotted paths of changed fields.
+     * @return changed paths, in field order.
+     */
+    public List<String> changedPaths() {
+        return this.changes.stream().map(Change::path).toList();
+    }
+
+    /**
+     * Writes the reloaded values of changed fields to the live config.
+     */
+    public void apply() {
+        this.apply(path -> false);
+    }
+
+    /**
+     * Writes the reloaded values of changed fields to the live config.
+     * @param keepOldValue whether to copy the old value of the path before
+     *                     a collection is updated in place, e.g. for listeners.
+     * @return applied changes, with the live field values as new values.
+     */
+    public List<Change> apply(Predicate<String> keepOldValue) {
+        List<Change> applied = new ArrayList<>(this.changes.size());
+        for (Change change : this.changes) {
+            Object oldValue = keepOldValue.test(change.path())
+                ? ConfigListeners.copyOf(change.oldValue())
+                : change.oldValue();
+            if (!updateInPlace(change.oldValue(), change.newValue())) {
+                change.accessor().set(change.parent(), change.newValue());
+            }
+            applied.add(
+                new Change(
+                    change.path(),
+                    change.parent(),
+                    change.accessor(),
+                    oldValue,
+                    change.accessor().get(change.parent())
+                )
+            );
+        }
+        return applied;
+    }
+
+    /**
+     * Updates collection or map contents to the new ones.
+     * @return false if the value cannot be updated in place (e.g. it's immutable).
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean updateInPlace(
+        @Nullable Object value,
+        @Nullable Object newValue
+    ) {
+        try {
+            if (
+                value instanceof Map<?, ?> map &&
+                newValue instanceof Map<?, ?> newMap
+            ) {
+                Map<Object, Object> target = (Map<Object, Object>) map;
+                target.keySet().retainAll(newMap.keySet());
+                for (Map.Entry<?, ?> entry : newMap.entrySet()) {
+                    Object key = entry.getKey();
+                    if (
+                        !target.containsKey(key) ||
+                        !deepEquals(target.get(key), entry.getValue())
+                    ) {
+                        target.put(key, entry.getValue());
+                    }
+                }
+                return true;
+            }
+            if (
+                value instanceof Collection<?> collection &&
+                newValue instanceof Collection<?> newCollection
+            ) {
+                Collection<Object> target = (Collection<Object>) collection;
+                target.clear();
+                target.addAll(newCollection);
+                return true;
+            }
+        } catch (UnsupportedOperationException | ClassCastException e) {
+            // Immutable, replaced instead
+        }
+        return false;
+    }
+}
@@ -3,18 +3,22 @@ package org.samo_lego.config2brigadier.common.util;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.Nullable;
 import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.LazySection;
 
 /**
  * Creates an object containing lists with primitives, {@link Object}s and nested {@link ConfigFieldList}s.
+ * <p>
+ * Lists only depend on the class (not on the config instance), so they are
+ * cached per class and reused when commands are registered again (e.g. on {@code /reload}).
  */
 public record ConfigFieldList(
-    Field parentField,
-    @Nullable Object parent,
+    @Nullable Field parentField,
     List<Field> booleans,
     List<Field> integers,
     List<Field> floats,
@@ -25,20 +29,35 @@ public record ConfigFieldList(
     List<Field> objects,
     List<ConfigFieldList> nestedFields
 ) {
+    /**
+     * Cached templates (with no parent field) per configurator class, then per class.
+     * Configurators are kept apart as they can override {@link IBrigadierConfigurator#shouldExclude(Field)}.
+     */
+    private static final ClassValue<Map<Class<?>, ConfigFieldList>> TEMPLATES =
+        new ClassValue<>() {
+            @Override
+            protected Map<Class<?>, ConfigFieldList> computeValue(
+                Class<?> type
+            ) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
     /**
      * Generates a {@link ConfigFieldList} for selected object with recursion.
      * Supports nested values as well.
      *
      * @param parentField - field whose name will be used for the command node. If null, it will default to "edit",
      *                    as the only config object that doesn't have a field is object itself, as it's a class.
-     * @param parent - object to generate {@link ConfigFieldList} for
+     * @param parent - object to generate {@link ConfigFieldList} for. Only its class is used,
+     *               apart from warming up the field accessors on first use.
      */
     public static ConfigFieldList populateFields(
         @Nullable Field parentField,
         Object parent,
         IBrigadierConfigurator config
     ) {
-        return populateFields(parentField, parent, parent.getClass(), config);
+        return cached(parentField, parent, parent.getClass(), config);
     }
 
     /**
@@ -53,14 +72,58 @@ public record ConfigFieldList(
         Class<?> clazz,
         IBrigadierConfigurator config
     ) {
-        return populateFields(parentField, null, clazz, config);
+        return cached(parentField, null, clazz, config);
     }
 
-    private static ConfigFieldList populateFields(
+    /**
+     * Creates a copy of this list with different parent field.
+     * Field lists are shared.
+     * @param parentField new parent field.
+     * @return list with given parent field.
+     */
+    public ConfigFieldList withParentField(@Nullable Field parentField) {
+        if (this.parentField == parentField) {
+            return this;
+        }
+        return new ConfigFieldList(
+            parentField,
+            this.booleans,
+            this.integers,
+            this.floats,
+            this.doubles,
+            this.maps,
+            this.lists,
+            this.sets,
+            this.objects,
+            this.nestedFields
+        );
+    }
+
+    private static ConfigFieldList cached(
         @Nullable Field parentField,
         @Nullable Object parent,
         Class<?> clazz,
         IBrigadierConfigurator config
+    ) {
+        Map<Class<?>, ConfigFieldList> templates = TEMPLATES.get(
+            config.getClass()
+        );
+        ConfigFieldList template = templates.get(clazz);
+        if (template == null) {
+            // Not in computeIfAbsent, as nested classes are populated recursively
+            template = populateFields(parent, clazz, config);
+            ConfigFieldList previous = templates.putIfAbsent(clazz, template);
+            if (previous != null) {
+                template = previous;
+            }
+        }
+        return template.withParentField(parentField);
+    }
+
+    private static ConfigFieldList populateFields(
+        @Nullable Object parent,
+        Class<?> clazz,
+        IBrigadierConfigurator config
     ) {
         List<Field> bools = new ArrayList<>();
         List<Field> ints = new ArrayList<>();
@@ -72,51 +135,61 @@ public record ConfigFieldList(
         List<Field> objects = new ArrayList<>();
         List<ConfigFieldList> nested = new ArrayList<>();
 
-        for (Field attribute : clazz.getFields()) {
-            Class<?> type = attribute.getType();
+        // Use the generated schema if available, otherwise fall back to reflection
+        Map<Field, ConfigSchema.Kind> fields = new LinkedHashMap<>();
+        ConfigSchema schema = ConfigSchema.find(clazz);
+        if (schema != null) {
+            for (ConfigSchema.Entry entry : schema.fields()) {
+                fields.put(entry.field(), entry.kind());
+            }
+        } else {
+            for (Field attribute : clazz.getFields()) {
+                fields.put(
+                    attribute,
+                    ConfigSchema.Kind.of(attribute.getType())
+                );
+            }
+        }
+
+        for (Map.Entry<Field, ConfigSchema.Kind> field : fields.entrySet()) {
+            Field attribute = field.getKey();
 
             if (config.shouldExclude(attribute)) {
                 continue;
             }
 
-            if (type.equals(boolean.class)) {
-                bools.add(attribute);
-            } else if (type.equals(int.class)) {
-                ints.add(attribute);
-            } else if (type.equals(float.class)) {
-                floats.add(attribute);
-            } else if (type.equals(double.class)) {
-                doubles.add(attribute);
-            } else if (Map.class.isAssignableFrom(type)) {
-                maps.add(attribute);
-            } else if (List.class.isAssignableFrom(type)) {
-                lists.add(attribute);
-            } else if (Set.class.isAssignableFrom(type)) {
-                sets.add(attribute);
-            } else if (type.isMemberClass()) {
-                // a subclass in our config
-                try {
-                    attribute.setAccessible(true);
+            // Accessors are built (and linked) once here, edits reuse them
+            FieldAccessor accessor = FieldAccessor.warmUp(attribute, parent);
+
+            // Sections are listed by the type of their value
+            boolean lazy = attribute.getType() == LazySection.class;
+            ConfigSchema.Kind kind = lazy
+                ? ConfigSchema.Kind.of(accessor.type())
+                : field.getValue();
+            switch (kind) {
+                case BOOLEAN -> bools.add(attribute);
+                case INTEGER -> ints.add(attribute);
+                case FLOAT -> floats.add(attribute);
+                case DOUBLE -> doubles.add(attribute);
+                case MAP -> maps.add(attribute);
+                case LIST -> lists.add(attribute);
+                case SET -> sets.add(attribute);
+                case NESTED -> {
+                    // a subclass in our config
+                    // (instance is only used to warm up the accessors,
+                    // sections are not loaded for it)
                     Object childAttribute =
-                        parent != null ? attribute.get(parent) : null;
-                    if (parent != null && childAttribute != null) {
-                        nested.add(
-                            populateFields(attribute, childAttribute, config)
-                        );
-                    } else {
-                        nested.add(template(attribute, type, config));
-                    }
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
+                        parent != null && !lazy ? accessor.get(parent) : null;
+                    nested.add(
+                        cached(attribute, childAttribute, accessor.type(), config)
+                    );
                 }
-            } else {
-                objects.add(attribute);
+                case OBJECT -> objects.add(attribute);
             }
         }
 
         return new ConfigFieldList(
-            parentField,
-            parent,
+            null,
             Collections.unmodifiableList(bools),
             Collections.unmodifiableList(ints),
             Collections.unmodifiableList(floats),
@@ -0,0 +1,143 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import static java.util.logging.Logger.getLogger;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.MOD_ID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.ConfigChangeListener;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+
+/**
+ * Change listeners of a config, keyed by dotted field path.
+ * <p>
+ * A listener registered for a path is also notified about changes of fields
+ * nested under it, e.g. a listener for {@code nested} gets changes of {@code nested.message}.
+ * Fields of map and list entries use the path without the key, e.g. {@code nestedMap.message}.
+ */
+public final class ConfigListeners {
+
+    private static final WeakIdentityMap<
+        IBrigadierConfigurator,
+        ConfigListeners
+    > LISTENERS = new WeakIdentityMap<>();
+
+    private final Map<String, List<ConfigChangeListener>> listeners =
+        new ConcurrentHashMap<>();
+
+    private ConfigListeners() {}
+
+    /**
+     * Gets the listeners of the config, creating them if needed.
+     * @param config config object.
+     * @return listeners of the config.
+     */
+    public static ConfigListeners of(IBrigadierConfigurator config) {
+        return LISTENERS.computeIfAbsent(config, c -> new ConfigListeners());
+    }
+
+    /**
+     * Gets the listeners of the config.
+     * @param config config object.
+     * @return listeners or null if none were ever added.
+     */
+    @Nullable
+    public static ConfigListeners get(IBrigadierConfigurator config) {
+        return LISTENERS.get(config);
+    }
+
+    public void add(String path, ConfigChangeListener listener) {
+        this.listeners.computeIfAbsent(path, p -> new CopyOnWriteArrayList<>())
+            .add(listener);
+    }
+
+    public void remove(String path, ConfigChangeListener listener) {
+        this.listeners.computeIfPresent(path, (p, list) -> {
+            list.remove(listener);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * Whether any listener would be notified about a change of the path.
+     * @param path dotted field path.
+     * @return true if the path or any of its parents has listeners.
+     */
+    public boolean isListening(String path) {
+        if (this.listeners.isEmpty()) {
+            return false;
+        }
+        for (String p = path; p != null; p = parent(p)) {
+            if (this.listeners.containsKey(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Notifies the listeners of the path and its parents.
+     * Exceptions thrown by listeners are logged, so they don't break the edit.
+     * @param path dotted path of the changed field.
+     * @param oldValue previous value.
+     * @param newValue current value.
+     */
+    public void notify(
+        String path,
+        @Nullable Object oldValue,
+        @Nullable Object newValue
+    ) {
+        for (String p = path; p != null; p = parent(p)) {
+            List<ConfigChangeListener> list = this.listeners.get(p);
+            if (list == null) {
+                continue;
+            }
+            for (ConfigChangeListener listener : list) {
+                try {
+                    listener.onChange(path, oldValue, newValue);
+                } catch (RuntimeException e) {
+                    getLogger(MOD_ID).severe(
+                        "[Config2Brigadier] Change listener for " +
+                            p +
+                            " failed: " +
+                            e
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies collections and maps, so the old value stays intact if
+     * the field is modified in place.
+     * @param value field value.
+     * @return copy for collections and maps, otherwise the value itself.
+     */
+    @Nullable
+    public static Object copyOf(@Nullable Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return new LinkedHashMap<>(map);
+        }
+        if (value instanceof Set<?> set) {
+            return new LinkedHashSet<>(set);
+        }
+        if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        }
+        return value;
+    }
+
+    @Nullable
+    private static String parent(String path) {
+        int index = path.lastIndexOf('.');
+        return index > 0 ? path.substring(0, index) : null;
+    }
+}
@@ -0,0 +1,187 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.annotation.BrigadierDescription;
+
+/**
+ * Schema of a config class, generated at compile time by the optional
+ * config2brigadier annotation processor. Contains the public fields
+ * already sorted into {@link ConfigFieldList} buckets, their descriptions and
+ * direct (non-reflective) accessors.
+ * <p>
+ * Generated schemas live in the same package as the class they describe
+ * and are named after it, e.g. {@code MyConfig_NestedValues_C2BSchema}
+ * for {@code MyConfig.NestedValues}. If no schema is found,
+ * reflection is used instead.
+ */
+public interface ConfigSchema {
+    /**
+     * Suffix of generated schema classes.
+     */
+    String SUFFIX = "_C2BSchema";
+
+    /**
+     * Gets the class this schema describes.
+     * @return described class.
+     */
+    Class<?> type();
+
+    /**
+     * Gets the public instance fields of the described class, in declaration order.
+     * @return schema entries.
+     */
+    List<Entry> fields();
+
+    /**
+     * Gets the dotted paths of all editable fields (relative to the described class),
+     * following nested member classes. These are also the permission sub-nodes,
+     * e.g. {@code modid.config.edit.nested.message}.
+     * @return list of dotted paths.
+     */
+    List<String> permissionPaths();
+
+    /**
+     * Kind of the field, matching the buckets of {@link ConfigFieldList}.
+     */
+    enum Kind {
+        BOOLEAN,
+        INTEGER,
+        FLOAT,
+        DOUBLE,
+        MAP,
+        LIST,
+        SET,
+        NESTED,
+        OBJECT;
+
+        /**
+         * Gets the kind for given field type.
+         * @param type type of the field.
+         * @return kind of the field.
+         */
+        public static Kind of(Class<?> type) {
+            if (type.equals(boolean.class)) return BOOLEAN;
+            if (type.equals(int.class)) return INTEGER;
+            if (type.equals(float.class)) return FLOAT;
+            if (type.equals(double.class)) return DOUBLE;
+            if (Map.class.isAssignableFrom(type)) return MAP;
+            if (List.class.isAssignableFrom(type)) return LIST;
+            if (Set.class.isAssignableFrom(type)) return SET;
+            if (type.isMemberClass()) return NESTED;
+            return OBJECT;
+        }
+    }
+
+    /**
+     * Schema entry for a single field.
+     * @param accessor accessor for the field.
+     * @param kind kind of the field.
+     * @param description value of {@link BrigadierDescription}, or empty string.
+     * @param defaultOption default option of {@link BrigadierDescription}, or empty string.
+     * @param comments ordered comment lines from {@code _comment_} fields.
+     */
+    record Entry(
+        FieldAccessor accessor,
+        Kind kind,
+        String description,
+        String defaultOption,
+        List<String> comments
+    ) {
+        public Field field() {
+            return this.accessor.field();
+        }
+
+        public String name() {
+            return this.accessor.name();
+        }
+    }
+
+    /**
+     * Finds the generated schema for given class.
+     * @param clazz class to find schema for.
+     * @return schema or null if the class wasn't processed by the annotation processor.
+     */
+    @Nullable
+    static ConfigSchema find(Class<?> clazz) {
+        return SchemaLookup.SCHEMAS.get(clazz);
+    }
+
+    /**
+     * Finds the generated schema entry for given field.
+     * @param field field to find entry for.
+     * @return schema entry or null if there's no generated schema for the declaring class.
+     */
+    @Nullable
+    static Entry entry(Field field) {
+        ConfigSchema schema = find(field.getDeclaringClass());
+        if (schema == null) {
+            return null;
+        }
+        for (Entry entry : schema.fields()) {
+            if (entry.name().equals(field.getName())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the public field of the class. Used by generated schemas.
+     * @param clazz class containing the field.
+     * @param name name of the field.
+     * @return field object.
+     */
+    @ApiStatus.Internal
+    static Field field(Class<?> clazz, String name) {
+        try {
+            return clazz.getField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(
+                "Generated schema is out of date for " + clazz.getName(),
+                e
+            );
+        }
+    }
+
+    /**
+     * Holder for the schema cache.
+     */
+    @ApiStatus.Internal
+    final class SchemaLookup {
+
+        private static final ClassValue<ConfigSchema> SCHEMAS =
+            new ClassValue<>() {
+                @Override
+                protected ConfigSchema computeValue(Class<?> type) {
+                    // org.example.MyConfig$Nested -> org.example.MyConfig_Nested_C2BSchema
+                    String name =
+                        type.getName().replace('$', '_') + SUFFIX;
+                    try {
+                        Class<?> schemaClass = Class.forName(
+                            name,
+                            true,
+                            type.getClassLoader()
+                        );
+                        return (ConfigSchema) schemaClass
+                            .getDeclaredConstructor()
+                            .newInstance();
+                    } catch (ClassNotFoundException e) {
+                        return null;
+                    } catch (ReflectiveOperationException | ClassCastException e) {
+                        throw new IllegalStateException(
+                            "Cannot load generated schema for " +
+                                type.getName(),
+                            e
+                        );
+                    }
+                }
+            };
+
+        private SchemaLookup() {}
+    }
+}
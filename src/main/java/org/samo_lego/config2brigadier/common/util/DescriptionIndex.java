@@ -0,0 +1,178 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.annotation.BrigadierDescription;
+
+/**
+ * Immutable index of field descriptions of a class, built once per class.
+ * Maps each field to its {@link BrigadierDescription} and its ordered comment lines,
+ * so showing the field info is a single map lookup.
+ */
+public final class DescriptionIndex {
+
+    /**
+     * Indexes per configurator class, then per class.
+     * Configurators are kept apart as they can override comment prefix and descriptions.
+     */
+    private static final ClassValue<
+        Map<Class<?>, DescriptionIndex>
+    > INDEXES = new ClassValue<>() {
+        @Override
+        protected Map<Class<?>, DescriptionIndex> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final Description EMPTY = new Description(
+        "",
+        "",
+        List.of()
+    );
+
+    private final Map<String, Description> descriptions;
+
+    private DescriptionIndex(Map<String, Description> descriptions) {
+        this.descriptions = descriptions;
+    }
+
+    /**
+     * Description data of a field.
+     * @param description description from {@link IBrigadierConfigurator#getDescription(Field)}.
+     * @param defaultOption default option from {@link BrigadierDescription}, or empty string.
+     * @param comments ordered comment lines from comment fields.
+     */
+    public record Description(
+        String description,
+        String defaultOption,
+        List<String> comments
+    ) {}
+
+    /**
+     * Gets the description index for given class.
+     * @param config configurator which comment settings are used.
+     * @param clazz class containing the fields.
+     * @return description index.
+     */
+    public static DescriptionIndex of(
+        IBrigadierConfigurator config,
+        Class<?> clazz
+    ) {
+        return INDEXES.get(config.getClass()).computeIfAbsent(clazz, c ->
+            build(config, c)
+        );
+    }
+
+    /**
+     * Gets the description of the field.
+     * @param field field to get description for.
+     * @return description, never null.
+     */
+    public Description get(Field field) {
+        return this.descriptions.getOrDefault(field.getName(), EMPTY);
+    }
+
+    private static DescriptionIndex build(
+        IBrigadierConfigurator config,
+        Class<?> clazz
+    ) {
+        Map<String, Description> descriptions = new HashMap<>();
+        String commentPrefix = config.getCommentPrefix();
+
+        ConfigSchema schema = ConfigSchema.find(clazz);
+        if (
+            schema != null &&
+            config.enableSerializedNameComments() &&
+            commentPrefix.equals(IBrigadierConfigurator.COMMENT_PREFIX)
+        ) {
+            // Already collected at compile time
+            for (ConfigSchema.Entry entry : schema.fields()) {
+                descriptions.put(
+                    entry.name(),
+                    new Description(
+                        entry.description(),
+                        entry.defaultOption(),
+                        entry.comments()
+                    )
+                );
+            }
+            return new DescriptionIndex(Map.copyOf(descriptions));
+        }
+
+        // Comments are named `prefix` + `field name` + optional index
+        Field[] fields = clazz.getFields();
+        Set<String> names = new HashSet<>();
+        for (Field field : fields) {
+            names.add(field.getName());
+        }
+        Map<String, TreeMap<Integer, String>> comments = new HashMap<>();
+        for (Field field : fields) {
+            String name = field.getName();
+            if (!name.startsWith(commentPrefix)) {
+                continue;
+            }
+
+            String target = name.substring(commentPrefix.length());
+            int end = commentTarget(target, names);
+            int index = NumberUtils.toInt(target.substring(end), 0);
+            comments
+                .computeIfAbsent(target.substring(0, end), k -> new TreeMap<>())
+                .put(index, config.getDescription(field));
+        }
+
+        for (Field field : fields) {
+            BrigadierDescription annotation = field.getAnnotation(
+                BrigadierDescription.class
+            );
+            TreeMap<Integer, String> fieldComments = comments.get(
+                field.getName()
+            );
+            descriptions.put(
+                field.getName(),
+                new Description(
+                    config.getDescription(field),
+                    annotation != null ? annotation.defaultOption() : "",
+                    fieldComments != null
+                        ? List.copyOf(fieldComments.values())
+                        : List.of()
+                )
+            );
+        }
+
+        return new DescriptionIndex(Map.copyOf(descriptions));
+    }
+
+    /**
+     * Finds where the field name ends in the comment target, the rest being the index.
+     * The field with the longest matching name wins, so {@code value2} is its own field
+     * rather than the second comment of {@code value}.
+     * @param target comment field name without the comment prefix.
+     * @param names names of all fields of the class.
+     * @return length of the commented field name.
+     */
+    private static int commentTarget(String target, Set<String> names) {
+        int end = target.length();
+        while (!names.contains(target.substring(0, end))) {
+            if (end == 0 || !Character.isDigit(target.charAt(end - 1))) {
+                // No such field, strip the whole index
+                end = target.length();
+                while (
+                    end > 0 && Character.isDigit(target.charAt(end - 1))
+                ) {
+                    --end;
+                }
+                return end;
+            }
+            --end;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,305 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+import org.samo_lego.config2brigadier.common.LazySection;
+
+/**
+ * Cached, {@link MethodHandle} based accessor for a config field.
+ * <p>
+ * Accessors are created once per {@link Field} (when {@link ConfigFieldList} is populated)
+ * and are then reused by every edit, info and suggestion path, so field access doesn't
+ * go through {@link Field#get(Object)} / {@link Field#set(Object, Object)} and
+ * {@link Field#setAccessible(boolean)} on each command execution.
+ * <p>
+ * If the config was compiled with the config2brigadier annotation processor,
+ * direct (non-reflective) accessors from the generated {@link ConfigSchema} are used instead.
+ */
+public class FieldAccessor {
+
+    private static final Map<Field, FieldAccessor> ACCESSORS =
+        new ConcurrentHashMap<>();
+
+    private final Field field;
+    @Nullable
+    private volatile Handles handles;
+
+    /**
+     * Creates a new accessor. Method handles are only created once
+     * they are needed, so accessors generated by the annotation processor
+     * (which override the access methods) don't need them at all.
+     * @param field field to access.
+     */
+    protected FieldAccessor(Field field) {
+        this.field = field;
+    }
+
+    /**
+     * Method handles for the field.
+     * @param getter getter with exact type of {@code (Object) fieldType}.
+     * @param setter setter with exact type of {@code (Object, fieldType) void}.
+     * @param objectGetter getter with exact type of {@code (Object) Object}, boxing primitives.
+     * @param objectSetter setter with exact type of {@code (Object, Object) void}, unboxing primitives.
+     */
+    private record Handles(
+        MethodHandle getter,
+        MethodHandle setter,
+        MethodHandle objectGetter,
+        MethodHandle objectSetter
+    ) {
+        private static Handles create(Field field) {
+            Class<?> type = field.getType();
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            try {
+                field.setAccessible(true);
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle get = lookup.unreflectGetter(field);
+                MethodHandle set;
+                try {
+                    set = lookup.unreflectSetter(field);
+                } catch (IllegalAccessException e) {
+                    // E.g. static final fields; fail only once someone tries to write
+                    set = MethodHandles.throwException(
+                        void.class,
+                        IllegalAccessException.class
+                    ).bindTo(e);
+                    Class<?>[] params = isStatic
+                        ? new Class<?>[] { type }
+                        : new Class<?>[] { field.getDeclaringClass(), type };
+                    set = MethodHandles.dropArguments(set, 0, params);
+                }
+
+                if (isStatic) {
+                    // Keep the same shape as instance fields, target is ignored
+                    get = MethodHandles.dropArguments(get, 0, Object.class);
+                    set = MethodHandles.dropArguments(set, 0, Object.class);
+                }
+
+                return new Handles(
+                    get.asType(MethodType.methodType(type, Object.class)),
+                    set.asType(
+                        MethodType.methodType(void.class, Object.class, type)
+                    ),
+                    get.asType(
+                        MethodType.methodType(Object.class, Object.class)
+                    ),
+                    set.asType(
+                        MethodType.methodType(
+                            void.class,
+                            Object.class,
+                            Object.class
+                        )
+                    )
+                );
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(
+                    "Cannot create accessor for field " + field.getName(),
+                    e
+                );
+            }
+        }
+    }
+
+    private Handles handles() {
+        Handles h = this.handles;
+        if (h == null) {
+            h = Handles.create(this.field);
+            this.handles = h;
+        }
+        return h;
+    }
+
+    /**
+     * Gets the cached accessor for the given field, creating it if needed.
+     * @param field field to get accessor for.
+     * @return accessor for the field.
+     */
+    public static FieldAccessor of(Field field) {
+        return ACCESSORS.computeIfAbsent(field, FieldAccessor::create);
+    }
+
+    /**
+     * Gets the cached accessor for the value stored in the field.
+     * Unlike {@link #of(Field)}, accessors of {@link LazySection} fields
+     * get and set the section itself instead of its value.
+     * @param field field to get accessor for.
+     * @return accessor for the field.
+     */
+    public static FieldAccessor stored(Field field) {
+        FieldAccessor accessor = of(field);
+        return accessor instanceof LazySectionAccessor lazy
+            ? lazy.section()
+            : accessor;
+    }
+
+    private static FieldAccessor create(Field field) {
+        FieldAccessor accessor;
+        // Prefer direct accessors from generated schema
+        ConfigSchema.Entry entry = ConfigSchema.entry(field);
+        if (entry != null) {
+            accessor = entry.accessor();
+        } else {
+            accessor = new FieldAccessor(field);
+            accessor.handles();
+        }
+
+        // Commands edit the section value
+        return field.getType() == LazySection.class
+            ? new LazySectionAccessor(accessor)
+            : accessor;
+    }
+
+    /**
+     * Gets the accessor for the field and links its getter by reading
+     * the current value, so the first info after command registration doesn't have to do it.
+     * The value is only read, as writing to the live config could race with
+     * the mod's initialization or trigger its change tracking.
+     * @param field field to warm up.
+     * @param target object containing the field, if available.
+     * @return accessor for the field.
+     */
+    public static FieldAccessor warmUp(Field field, @Nullable Object target) {
+        FieldAccessor accessor = of(field);
+        // Sections are not loaded just for the warm-up
+        if (target != null && !(accessor instanceof LazySectionAccessor)) {
+            try {
+                accessor.get(target);
+            } catch (RuntimeException ignored) {
+                // Warm-up is best effort only
+            }
+        }
+        return accessor;
+    }
+
+    public Field field() {
+        return this.field;
+    }
+
+    public String name() {
+        return this.field.getName();
+    }
+
+    public Class<?> type() {
+        return this.field.getType();
+    }
+
+    public Type genericType() {
+        return this.field.getGenericType();
+    }
+
+    public Object get(Object target) {
+        try {
+            return this.handles().objectGetter().invokeExact(target);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public void set(Object target, Object value) {
+        try {
+            this.handles().objectSetter().invokeExact(target, value);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public boolean getBoolean(Object target) {
+        try {
+            return (boolean) this.handles().getter().invokeExact(target);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public void setBoolean(Object target, boolean value) {
+        try {
+            this.handles().setter().invokeExact(target, value);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public int getInt(Object target) {
+        try {
+            return (int) this.handles().getter().invokeExact(target);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public void setInt(Object target, int value) {
+        try {
+            this.handles().setter().invokeExact(target, value);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public long getLong(Object target) {
+        try {
+            return (long) this.handles().getter().invokeExact(target);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public void setLong(Object target, long value) {
+        try {
+            this.handles().setter().invokeExact(target, value);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public float getFloat(Object target) {
+        try {
+            return (float) this.handles().getter().invokeExact(target);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public void setFloat(Object target, float value) {
+        try {
+            this.handles().setter().invokeExact(target, value);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public double getDouble(Object target) {
+        try {
+            return (double) this.handles().getter().invokeExact(target);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    public void setDouble(Object target, double value) {
+        try {
+            this.handles().setter().invokeExact(target, value);
+        } catch (Throwable e) {
+            throw this.rethrow(e);
+        }
+    }
+
+    private RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(
+            "Failed to access field " + this.field.getName(),
+            e
+        );
+    }
+}
@@ -0,0 +1,67 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import org.samo_lego.config2brigadier.common.LazySection;
+
+/**
+ * Accessor of a {@link LazySection} field that gets and sets the section value,
+ * so commands can treat the field as if it held the value directly.
+ * The section is only loaded once its value is accessed.
+ */
+final class LazySectionAccessor extends FieldAccessor {
+
+    private final FieldAccessor section;
+    private final Type genericType;
+    private final Class<?> type;
+
+    LazySectionAccessor(FieldAccessor section) {
+        super(section.field());
+        this.section = section;
+        this.genericType =
+            section.genericType() instanceof ParameterizedType parameterized
+                ? parameterized.getActualTypeArguments()[0]
+                : Object.class;
+        this.type = this.genericType instanceof ParameterizedType parameterized
+            ? (Class<?>) parameterized.getRawType()
+            : this.genericType instanceof Class<?> clazz
+                ? clazz
+                : Object.class;
+    }
+
+    /**
+     * Gets the accessor of the {@link LazySection} itself.
+     */
+    FieldAccessor section() {
+        return this.section;
+    }
+
+    @Override
+    public Class<?> type() {
+        return this.type;
+    }
+
+    @Override
+    public Type genericType() {
+        return this.genericType;
+    }
+
+    @Override
+    public Object get(Object target) {
+        LazySection<?> section = (LazySection<?>) this.section.get(target);
+        return section != null ? section.get() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void set(Object target, Object value) {
+        LazySection<Object> section = (LazySection<Object>) this.section.get(
+            target
+        );
+        if (section != null) {
+            section.set(value);
+        } else {
+            this.section.set(target, LazySection.of(value));
+        }
+    }
+}
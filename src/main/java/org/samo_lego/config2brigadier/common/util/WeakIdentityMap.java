@@ -0,0 +1,123 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Synchronized map with weakly held keys, compared by identity.
+ * <p>
+ * Used to attach state to config objects. Unlike a {@link java.util.WeakHashMap},
+ * configs with value-based {@code equals} (e.g. records) keep their state
+ * after their values are edited, and equal configs don't share it.
+ * @param <K> key type.
+ * @param <V> value type.
+ */
+public final class WeakIdentityMap<K, V> {
+
+    private final Map<Key<K>, V> entries = new HashMap<>();
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+    /**
+     * Weak reference to a key, equal to references of the same key.
+     */
+    private static final class Key<K> extends WeakReference<K> {
+
+        private final int hash;
+
+        private Key(K key, @Nullable ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key<?> key)) {
+                return false;
+            }
+            Object referent = this.get();
+            return referent != null && referent == key.get();
+        }
+    }
+
+    @Nullable
+    public synchronized V get(K key) {
+        this.expunge();
+        return this.entries.get(new Key<>(key, null));
+    }
+
+    public synchronized void put(K key, V value) {
+        this.expunge();
+        this.entries.put(new Key<>(key, this.queue), value);
+    }
+
+    public synchronized V computeIfAbsent(
+        K key,
+        Function<? super K, ? extends V> mappingFunction
+    ) {
+        V value = this.get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            this.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the entry of the key if it's mapped to the value.
+     * @param key key to remove.
+     * @param value expected value, compared by identity.
+     * @return true if the entry was removed.
+     */
+    public synchronized boolean remove(K key, V value) {
+        this.expunge();
+        Key<K> reference = new Key<>(key, null);
+        if (this.entries.get(reference) != value) {
+            return false;
+        }
+        this.entries.remove(reference);
+        return true;
+    }
+
+    /**
+     * Gets the keys that weren't collected yet.
+     * @return copy of the keys.
+     */
+    public synchronized List<K> keys() {
+        this.expunge();
+        List<K> keys = new ArrayList<>(this.entries.size());
+        for (Key<K> key : this.entries.keySet()) {
+            K referent = key.get();
+            if (referent != null) {
+                keys.add(referent);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Removes the entries of collected keys.
+     */
+    private void expunge() {
+        for (
+            var key = this.queue.poll();
+            key != null;
+            key = this.queue.poll()
+        ) {
+            this.entries.remove(key);
+        }
+    }
+}
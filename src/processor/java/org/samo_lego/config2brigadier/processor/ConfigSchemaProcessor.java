@@ -0,0 +1,640 @@
+package org.samo_lego.config2brigadier.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code ConfigSchema} for every class implementing {@code IBrigadierConfigurator}
+ * and for the member classes it uses, so the command generation doesn't need to scan the
+ * fields with reflection and edits can use direct field access.
+ * <p>
+ * The processor doesn't depend on the library classes, it only looks them up by name.
+ */
+@SupportedAnnotationTypes("*")
+public class ConfigSchemaProcessor extends AbstractProcessor {
+
+    private static final String CONFIGURATOR =
+        "org.samo_lego.config2brigadier.common.IBrigadierConfigurator";
+    private static final String DESCRIPTION =
+        "org.samo_lego.config2brigadier.common.annotation.BrigadierDescription";
+    private static final String EXCLUDED =
+        "org.samo_lego.config2brigadier.common.annotation.BrigadierExcluded";
+    private static final String SERIALIZED_NAME =
+        "com.google.gson.annotations.SerializedName";
+    private static final String LAZY_SECTION =
+        "org.samo_lego.config2brigadier.common.LazySection";
+    private static final String SCHEMA =
+        "org.samo_lego.config2brigadier.common.util.ConfigSchema";
+    private static final String ACCESSOR =
+        "org.samo_lego.config2brigadier.common.util.FieldAccessor";
+    private static final String COMMENT_PREFIX = "_comment_";
+    private static final String SUFFIX = "_C2BSchema";
+
+    private final Set<String> generated = new HashSet<>();
+    private Elements elements;
+    private Types types;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(
+        Set<? extends TypeElement> annotations,
+        RoundEnvironment roundEnv
+    ) {
+        this.elements = this.processingEnv.getElementUtils();
+        this.types = this.processingEnv.getTypeUtils();
+
+        TypeElement configurator = this.elements.getTypeElement(CONFIGURATOR);
+        if (configurator == null) {
+            return false;
+        }
+        TypeMirror configuratorType = this.types.erasure(
+            configurator.asType()
+        );
+
+        Set<TypeElement> roots = new HashSet<>();
+        for (Element root : roundEnv.getRootElements()) {
+            if (root instanceof TypeElement type) {
+                roots.add(type);
+            }
+        }
+
+        List<TypeElement> queue = new ArrayList<>(roots);
+        while (!queue.isEmpty()) {
+            TypeElement type = queue.removeLast();
+            for (Element enclosed : type.getEnclosedElements()) {
+                if (enclosed instanceof TypeElement member) {
+                    queue.add(member);
+                }
+            }
+
+            if (
+                type.getKind() == ElementKind.CLASS &&
+                this.types.isAssignable(
+                    this.types.erasure(type.asType()),
+                    configuratorType
+                )
+            ) {
+                this.generate(type, roots);
+            }
+        }
+
+        // Other processors may want "*" too
+        return false;
+    }
+
+    /**
+     * Generates schema for the type and for the member classes it references.
+     */
+    private void generate(TypeElement type, Set<TypeElement> roots) {
+        String schemaName = this.schemaName(type);
+        if (!this.generated.add(schemaName) || !this.isAccessible(type)) {
+            return;
+        }
+
+        List<VariableElement> fields = this.publicFields(type);
+        StringBuilder entries = new StringBuilder();
+        for (VariableElement field : fields) {
+            // Comment and excluded fields stay in schema, as shouldExclude can be overridden
+            if (!entries.isEmpty()) {
+                entries.append(",\n");
+            }
+            entries.append(this.entry(type, field, fields));
+
+            // Member classes used by this config need a schema too
+            for (TypeElement member : this.referencedMemberClasses(field)) {
+                if (roots.contains(this.outermost(member))) {
+                    this.generate(member, roots);
+                }
+            }
+        }
+
+        List<String> paths = new ArrayList<>();
+        this.collectPaths(type, "", paths, new HashSet<>());
+
+        String packageName = this.elements.getPackageOf(type)
+            .getQualifiedName()
+            .toString();
+        String simpleName = schemaName.substring(
+            packageName.isEmpty() ? 0 : packageName.length() + 1
+        );
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source
+            .append("@javax.annotation.processing.Generated(\"")
+            .append(ConfigSchemaProcessor.class.getName())
+            .append("\")\n")
+            .append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n")
+            .append("public final class ")
+            .append(simpleName)
+            .append(" implements ")
+            .append(SCHEMA)
+            .append(" {\n\n")
+            .append("    private static final Class<?> TYPE = ")
+            .append(type.getQualifiedName())
+            .append(".class;\n\n")
+            .append("    private static final java.util.List<Entry> FIELDS = java.util.List.of(\n")
+            .append(entries)
+            .append("\n    );\n\n")
+            .append("    private static final java.util.List<String> PERMISSION_PATHS = ")
+            .append(this.stringList(paths))
+            .append(";\n\n")
+            .append("    @Override\n")
+            .append("    public Class<?> type() {\n")
+            .append("        return TYPE;\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public java.util.List<Entry> fields() {\n")
+            .append("        return FIELDS;\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public java.util.List<String> permissionPaths() {\n")
+            .append("        return PERMISSION_PATHS;\n")
+            .append("    }\n")
+            .append("}\n");
+
+        try (
+            Writer writer = this.processingEnv.getFiler()
+                .createSourceFile(schemaName, type)
+                .openWriter()
+        ) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            this.processingEnv.getMessager()
+                .printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "Failed to write config schema: " + e.getMessage(),
+                    type
+                );
+        }
+    }
+
+    /**
+     * Generates a {@code new Entry(...)} expression for the field.
+     */
+    private String entry(
+        TypeElement owner,
+        VariableElement field,
+        List<VariableElement> allFields
+    ) {
+        String name = field.getSimpleName().toString();
+        String ownerName = owner.getQualifiedName().toString();
+        String target = "((" + ownerName + ") target)." + name;
+        TypeMirror fieldType = field.asType();
+
+        StringBuilder accessor = new StringBuilder();
+        accessor
+            .append("            new ")
+            .append(ACCESSOR)
+            .append("(")
+            .append(SCHEMA)
+            .append(".field(TYPE, \"")
+            .append(name)
+            .append("\")) {\n");
+
+        // Boxed access
+        accessor
+            .append("                @Override\n")
+            .append("                public Object get(Object target) {\n")
+            .append("                    return ")
+            .append(target)
+            .append(";\n")
+            .append("                }\n");
+
+        boolean writable =
+            !field.getModifiers().contains(Modifier.FINAL) &&
+            this.isAccessible(fieldType);
+        String erased = this.types.erasure(fieldType).toString();
+        if (writable) {
+            accessor
+                .append("                @Override\n")
+                .append(
+                    "                public void set(Object target, Object value) {\n"
+                )
+                .append("                    ")
+                .append(target)
+                .append(" = (")
+                .append(erased)
+                .append(") value;\n")
+                .append("                }\n");
+        }
+
+        // Typed primitive access
+        String primitive = switch (fieldType.getKind()) {
+            case BOOLEAN -> "Boolean";
+            case INT -> "Int";
+            case LONG -> "Long";
+            case FLOAT -> "Float";
+            case DOUBLE -> "Double";
+            default -> null;
+        };
+        if (primitive != null) {
+            accessor
+                .append("                @Override\n")
+                .append("                public ")
+                .append(erased)
+                .append(" get")
+                .append(primitive)
+                .append("(Object target) {\n")
+                .append("                    return ")
+                .append(target)
+                .append(";\n")
+                .append("                }\n");
+            if (writable) {
+                accessor
+                    .append("                @Override\n")
+                    .append("                public void set")
+                    .append(primitive)
+                    .append("(Object target, ")
+                    .append(erased)
+                    .append(" value) {\n")
+                    .append("                    ")
+                    .append(target)
+                    .append(" = value;\n")
+                    .append("                }\n");
+            }
+        }
+        accessor.append("            }");
+
+        String description = "";
+        String defaultOption = "";
+        AnnotationMirror descriptionAnnotation = this.annotation(
+            field,
+            DESCRIPTION
+        );
+        if (descriptionAnnotation != null) {
+            description = this.annotationString(descriptionAnnotation, "value");
+            defaultOption = this.annotationString(
+                descriptionAnnotation,
+                "defaultOption"
+            );
+        }
+
+        return (
+            "        new Entry(\n" +
+            accessor +
+            ",\n" +
+            "            Kind." +
+            this.kind(this.valueType(fieldType)) +
+            ",\n" +
+            "            " +
+            this.literal(description) +
+            ",\n" +
+            "            " +
+            this.literal(defaultOption) +
+            ",\n" +
+            "            " +
+            this.stringList(this.comments(name, allFields)) +
+            "\n" +
+            "        )"
+        );
+    }
+
+    /**
+     * Gets the ordered comment lines from {@code _comment_<name><index>} fields.
+     */
+    private List<String> comments(String name, List<VariableElement> fields) {
+        String prefix = COMMENT_PREFIX + name;
+        Map<Integer, String> comments = new TreeMap<>();
+        for (VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            if (!fieldName.startsWith(prefix)) {
+                continue;
+            }
+            String suffix = fieldName.substring(prefix.length());
+            if (!suffix.chars().allMatch(Character::isDigit)) {
+                continue;
+            }
+            if (this.isOtherField(name, suffix, fields)) {
+                // E.g. `_comment_value2` belongs to field `value2`
+                continue;
+            }
+            int index = suffix.isEmpty() ? 0 : Integer.parseInt(suffix);
+            comments.put(index, this.commentDescription(field));
+        }
+        return new ArrayList<>(comments.values());
+    }
+
+    /**
+     * Whether part of the index suffix belongs to the name of another field,
+     * as the longest matching field name is commented.
+     */
+    private boolean isOtherField(
+        String name,
+        String suffix,
+        List<VariableElement> fields
+    ) {
+        for (VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            if (
+                fieldName.length() > name.length() &&
+                fieldName.length() <= name.length() + suffix.length() &&
+                (name + suffix).startsWith(fieldName)
+            ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@code IBrigadierConfigurator#getDescription} for comment fields.
+     */
+    private String commentDescription(VariableElement field) {
+        AnnotationMirror description = this.annotation(field, DESCRIPTION);
+        if (description != null) {
+            return this.annotationString(description, "value");
+        }
+        AnnotationMirror serializedName = this.annotation(
+            field,
+            SERIALIZED_NAME
+        );
+        if (serializedName != null) {
+            String value = this.annotationString(serializedName, "value");
+            return value.length() > "// ".length()
+                ? value.substring("// ".length())
+                : "";
+        }
+        return "";
+    }
+
+    /**
+     * Collects dotted paths of editable fields, following nested member classes.
+     */
+    private void collectPaths(
+        TypeElement type,
+        String prefix,
+        List<String> paths,
+        Set<TypeElement> visiting
+    ) {
+        if (!visiting.add(type)) {
+            return;
+        }
+        for (VariableElement field : this.publicFields(type)) {
+            String name = field.getSimpleName().toString();
+            if (
+                name.startsWith(COMMENT_PREFIX) ||
+                this.annotation(field, EXCLUDED) != null
+            ) {
+                continue;
+            }
+            paths.add(prefix + name);
+            TypeMirror valueType = this.valueType(field.asType());
+            if (
+                this.kind(valueType).equals("NESTED") &&
+                this.types.asElement(valueType) instanceof TypeElement nested
+            ) {
+                this.collectPaths(nested, prefix + name + ".", paths, visiting);
+            }
+        }
+        visiting.remove(type);
+    }
+
+    /**
+     * Gets the type of the section value for {@code LazySection} fields,
+     * as they are listed by it, otherwise the type itself.
+     */
+    private TypeMirror valueType(TypeMirror type) {
+        if (
+            type instanceof DeclaredType declared &&
+            declared.getTypeArguments().size() == 1 &&
+            this.types.erasure(type).toString().equals(LAZY_SECTION)
+        ) {
+            return declared.getTypeArguments().getFirst();
+        }
+        return type;
+    }
+
+    /**
+     * Mirrors {@code ConfigSchema.Kind#of(Class)}.
+     */
+    private String kind(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "BOOLEAN";
+            case INT:
+                return "INTEGER";
+            case FLOAT:
+                return "FLOAT";
+            case DOUBLE:
+                return "DOUBLE";
+            case DECLARED:
+                break;
+            default:
+                return "OBJECT";
+        }
+
+        TypeMirror erased = this.types.erasure(type);
+        if (this.isSubtype(erased, "java.util.Map")) return "MAP";
+        if (this.isSubtype(erased, "java.util.List")) return "LIST";
+        if (this.isSubtype(erased, "java.util.Set")) return "SET";
+
+        Element element = this.types.asElement(type);
+        if (
+            element instanceof TypeElement typeElement &&
+            typeElement.getNestingKind() == NestingKind.MEMBER
+        ) {
+            return "NESTED";
+        }
+        return "OBJECT";
+    }
+
+    private boolean isSubtype(TypeMirror type, String superType) {
+        TypeElement element = this.elements.getTypeElement(superType);
+        return (
+            element != null &&
+            this.types.isAssignable(
+                type,
+                this.types.erasure(element.asType())
+            )
+        );
+    }
+
+    /**
+     * Gets member classes used by the field directly or as type arguments
+     * (e.g. {@code Map<String, NestedValues>}).
+     */
+    private List<TypeElement> referencedMemberClasses(VariableElement field) {
+        List<TypeElement> members = new ArrayList<>();
+        List<TypeMirror> candidates = new ArrayList<>();
+        candidates.add(field.asType());
+        if (field.asType() instanceof DeclaredType declared) {
+            candidates.addAll(declared.getTypeArguments());
+        }
+        for (TypeMirror candidate : candidates) {
+            if (
+                candidate.getKind() == TypeKind.DECLARED &&
+                this.types.asElement(candidate) instanceof TypeElement element &&
+                element.getNestingKind() == NestingKind.MEMBER &&
+                element.getKind() == ElementKind.CLASS
+            ) {
+                members.add(element);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Same order as {@link Class#getFields()}: own fields first, then the ones from superclasses.
+     * Static fields are skipped.
+     */
+    private List<VariableElement> publicFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        TypeElement current = type;
+        while (current != null) {
+            for (Element enclosed : current.getEnclosedElements()) {
+                if (
+                    enclosed.getKind() == ElementKind.FIELD &&
+                    enclosed.getModifiers().contains(Modifier.PUBLIC) &&
+                    !enclosed.getModifiers().contains(Modifier.STATIC) &&
+                    names.add(enclosed.getSimpleName().toString())
+                ) {
+                    fields.add((VariableElement) enclosed);
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                ? (TypeElement) this.types.asElement(superclass)
+                : null;
+        }
+        return fields;
+    }
+
+    private String schemaName(TypeElement type) {
+        // org.example.MyConfig$Nested -> org.example.MyConfig_Nested_C2BSchema
+        return (
+            this.elements.getBinaryName(type).toString().replace('$', '_') +
+            SUFFIX
+        );
+    }
+
+    private TypeElement outermost(TypeElement type) {
+        TypeElement current = type;
+        while (current.getEnclosingElement() instanceof TypeElement enclosing) {
+            current = enclosing;
+        }
+        return current;
+    }
+
+    /**
+     * Whether the type can be referenced from the generated schema (same package).
+     */
+    private boolean isAccessible(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return this.isAccessible(
+                ((javax.lang.model.type.ArrayType) type).getComponentType()
+            );
+        }
+        if (this.types.asElement(type) instanceof TypeElement element) {
+            return this.isAccessible(element);
+        }
+        return true;
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        Element current = type;
+        while (!(current instanceof PackageElement) && current != null) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType =
+                (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private String annotationString(AnnotationMirror mirror, String key) {
+        for (Map.Entry<
+            ? extends ExecutableElement,
+            ? extends AnnotationValue
+        > value : this.elements.getElementValuesWithDefaults(
+            mirror
+        ).entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals(key)) {
+                return String.valueOf(value.getValue().getValue());
+            }
+        }
+        return "";
+    }
+
+    private String stringList(List<String> values) {
+        if (values.isEmpty()) {
+            return "java.util.List.of()";
+        }
+        StringBuilder list = new StringBuilder("java.util.List.of(");
+        for (int i = 0; i < values.size(); ++i) {
+            if (i > 0) {
+                list.append(", ");
+            }
+            list.append(this.literal(values.get(i)));
+        }
+        return list.append(")").toString();
+    }
+
+    /**
+     * Creates an escaped java string literal.
+     */
+    private String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+                }
+            }
+        }
+        return literal.append("\"").toString();
+    }
+}
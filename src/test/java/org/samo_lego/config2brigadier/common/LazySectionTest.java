@@ -0,0 +1,124 @@
+package org.samo_lego.config2brigadier.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.samo_lego.config2brigadier.common.io.ConfigLoader;
+import org.samo_lego.config2brigadier.common.io.ConfigStorage;
+
+class LazySectionTest {
+
+    private static final String JSON =
+        "{\"message\": \"Hi\"," +
+        " \"nested\": {\"names\": [\"a\", \"b\"], \"extra\": 1}}";
+
+    @TempDir
+    Path dir;
+
+    public static class Config implements IBrigadierConfigurator {
+
+        public String message = "Hello";
+        public LazySection<Nested> nested = LazySection.of(new Nested());
+
+        @Override
+        public void save() {}
+    }
+
+    public static class Nested {
+
+        public List<String> names = new ArrayList<>();
+    }
+
+    private static JsonObject nestedJson(String json) {
+        return JsonParser.parseString(json)
+            .getAsJsonObject()
+            .getAsJsonObject("nested");
+    }
+
+    @Test
+    void loadsOnFirstGet() {
+        Config config = GSON.fromJson(JSON, Config.class);
+
+        assertFalse(config.nested.isLoaded());
+        Nested nested = config.nested.get();
+        assertTrue(config.nested.isLoaded());
+        assertNotNull(nested);
+        assertEquals(List.of("a", "b"), nested.names);
+    }
+
+    @Test
+    void writesUnloadedSectionAsIs() {
+        Config config = GSON.fromJson(JSON, Config.class);
+
+        String json = GSON.toJson(config);
+
+        assertFalse(config.nested.isLoaded());
+        assertEquals(nestedJson(JSON), nestedJson(json));
+    }
+
+    @Test
+    void writesLoadedSection() {
+        Config config = GSON.fromJson(JSON, Config.class);
+        config.nested.get().names.add("c");
+
+        Config read = GSON.fromJson(GSON.toJson(config), Config.class);
+
+        assertEquals(List.of("a", "b", "c"), read.nested.get().names);
+        // Unknown values are only kept while the section isn't loaded
+        assertFalse(nestedJson(GSON.toJson(config)).has("extra"));
+    }
+
+    @Test
+    void readsNullSection() {
+        Config config = GSON.fromJson("{\"nested\": null}", Config.class);
+
+        assertTrue(config.nested.isLoaded());
+        assertNull(config.nested.get());
+    }
+
+    @Test
+    void comparesByJson() {
+        Config config = GSON.fromJson(JSON, Config.class);
+        Nested nested = new Nested();
+        nested.names.addAll(List.of("a", "b"));
+
+        // The unloaded json still has the unknown value
+        assertFalse(config.nested.equals(LazySection.of(nested)));
+        config.nested.get();
+        assertEquals(LazySection.of(nested), config.nested);
+        assertEquals(
+            LazySection.of(nested).hashCode(),
+            config.nested.hashCode()
+        );
+    }
+
+    @Test
+    void savesUnloadedSection() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        Files.writeString(file, JSON);
+
+        Config config = ConfigLoader.load(file, Config.class, Config::new);
+        config.message = "Hello";
+        ConfigStorage storage = ConfigStorage.get(config);
+        assertNotNull(storage);
+        storage.save(config);
+
+        assertFalse(config.nested.isLoaded());
+        String saved = Files.readString(file);
+        assertTrue(saved.contains("\"Hello\""));
+        assertEquals(nestedJson(JSON), nestedJson(saved));
+    }
+}
@@ -0,0 +1,166 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.util.ConfigFieldList;
+import org.samo_lego.config2brigadier.common.util.FieldAccessor;
+
+class CommandFeedbackTest {
+
+    private static final String PERMISSION = "mod.config.edit";
+
+    public static class Config implements IBrigadierConfigurator {
+
+        public int count = 1;
+        public String message = "Hello";
+        public Nested nested = new Nested();
+
+        @Override
+        public void save() {}
+    }
+
+    public static class Nested {
+
+        public boolean show = true;
+    }
+
+    private static CommandFeedback.Batch batch(
+        Config config,
+        String values,
+        Predicate<String> permitted
+    ) {
+        JsonObject json = JsonParser.parseString(values).getAsJsonObject();
+        return CommandFeedback.applyBatch(
+            config,
+            ConfigFieldList.populateFields(null, config, config),
+            PERMISSION,
+            json,
+            permitted
+        );
+    }
+
+    private static void assertUnchanged(Config config) {
+        assertEquals(1, config.count);
+        assertEquals("Hello", config.message);
+        assertTrue(config.nested.show);
+    }
+
+    @Test
+    void appliesBatch() {
+        Config config = new Config();
+
+        CommandFeedback.Batch batch = batch(
+            config,
+            "{\"count\": 5, \"nested.show\": false, \"message\": \"Hi\"}",
+            permission -> true
+        );
+
+        assertEquals(List.of(), batch.errors());
+        assertEquals(3, batch.assignments().size());
+        assertEquals(5, config.count);
+        assertFalse(config.nested.show);
+        assertEquals("Hi", config.message);
+        assertArrayEquals(new Object[] { 1, true, "Hello" }, batch.oldValues());
+    }
+
+    @Test
+    void rejectsBatchWithInvalidValue() {
+        Config config = new Config();
+
+        CommandFeedback.Batch batch = batch(
+            config,
+            "{\"message\": \"Hi\", \"nested\": {\"show\": false}, \"count\": \"many\"}",
+            permission -> true
+        );
+
+        assertEquals(1, batch.errors().size());
+        assertTrue(batch.errors().get(0).startsWith("count: "));
+        assertEquals(List.of(), batch.assignments());
+        assertUnchanged(config);
+    }
+
+    @Test
+    void rejectsBatchWithUnknownOrForbiddenOption() {
+        Config config = new Config();
+
+        CommandFeedback.Batch batch = batch(
+            config,
+            "{\"message\": \"Hi\", \"missing\": 1, \"nested.show\": false}",
+            permission -> !permission.equals(PERMISSION + ".nested.show")
+        );
+
+        assertEquals(
+            List.of("missing: unknown option", "nested.show: no permission"),
+            batch.errors()
+        );
+        assertUnchanged(config);
+    }
+
+    @Test
+    void rejectsEmptyBatch() {
+        Config config = new Config();
+
+        CommandFeedback.Batch batch = batch(config, "{}", permission -> true);
+
+        assertEquals(List.of("no options given"), batch.errors());
+    }
+
+    @Test
+    void rollsBackFailedAssignment() throws NoSuchFieldException {
+        Config config = new Config();
+        FieldAccessor readOnly = new FieldAccessor(
+            Config.class.getField("message")
+        ) {
+            @Override
+            public void set(Object target, Object value) {
+                throw new IllegalStateException("read-only");
+            }
+        };
+        List<CommandFeedback.Assignment> assignments = List.of(
+            new CommandFeedback.Assignment(
+                "count",
+                List.of("count"),
+                config,
+                FieldAccessor.of(Config.class.getField("count")),
+                5
+            ),
+            new CommandFeedback.Assignment(
+                "nested.show",
+                List.of("nested", "show"),
+                config.nested,
+                FieldAccessor.of(Nested.class.getField("show")),
+                false
+            ),
+            new CommandFeedback.Assignment(
+                "message",
+                List.of("message"),
+                config,
+                readOnly,
+                "Hi"
+            )
+        );
+        Object[] oldValues = new Object[assignments.size()];
+
+        String error = CommandFeedback.applyAll(assignments, oldValues);
+
+        assertEquals("message: read-only", error);
+        assertUnchanged(config);
+
+        // Nothing to roll back if all of them succeed
+        assertNull(
+            CommandFeedback.applyAll(assignments.subList(0, 2), oldValues)
+        );
+        assertEquals(5, config.count);
+        assertFalse(config.nested.show);
+    }
+}
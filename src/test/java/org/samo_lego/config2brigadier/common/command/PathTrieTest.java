@@ -0,0 +1,115 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.util.ConfigFieldList;
+
+class PathTrieTest {
+
+    public static class Config implements IBrigadierConfigurator {
+
+        public boolean show = true;
+        public int count = 1;
+        public String message = "Hello";
+        public List<String> messages = new ArrayList<>();
+        public Nested nested = new Nested();
+
+        @Override
+        public void save() {}
+    }
+
+    public static class Nested {
+
+        public String message = "Hi";
+        public int maxCount = 2;
+    }
+
+    private static PathTrie paths(Config config) {
+        return PathTrie.of(ConfigFieldList.populateFields(null, config, config));
+    }
+
+    private static List<String> suggest(
+        PathTrie paths,
+        String typed,
+        int limit,
+        Predicate<String> permitted
+    ) {
+        SuggestionsBuilder builder = new SuggestionsBuilder(typed, 0);
+        paths.suggest(builder, limit, permitted);
+        return builder
+            .build()
+            .getList()
+            .stream()
+            .map(Suggestion::getText)
+            .sorted()
+            .toList();
+    }
+
+    @Test
+    void suggestsPaths() {
+        PathTrie paths = paths(new Config());
+
+        assertEquals(
+            List.of("message", "messages"),
+            suggest(paths, "mes", 10, path -> true)
+        );
+        assertEquals(
+            List.of("nested.maxCount", "nested.message"),
+            suggest(paths, "nested.", 10, path -> true)
+        );
+        assertEquals(
+            List.of("nested.message"),
+            suggest(paths, "nested.me", 10, path -> true)
+        );
+        assertEquals(List.of(), suggest(paths, "missing.", 10, path -> true));
+    }
+
+    @Test
+    void suggestsPermittedPaths() {
+        PathTrie paths = paths(new Config());
+
+        assertEquals(
+            List.of("count", "messages", "nested", "show"),
+            suggest(paths, "", 10, path -> !path.equals("message"))
+        );
+        assertEquals(
+            List.of("nested.maxCount"),
+            suggest(paths, "nested.", 10, path -> !path.endsWith("message"))
+        );
+        // Only permitted paths count towards the limit
+        assertEquals(
+            List.of("nested"),
+            suggest(paths, "n", 1, path -> path.equals("nested"))
+        );
+    }
+
+    @Test
+    void resolvesPaths() {
+        Config config = new Config();
+        PathTrie paths = paths(config);
+
+        PathTrie.Resolved message = paths.resolve(config, "nested.message");
+        assertNotNull(message);
+        assertSame(config.nested, message.parent());
+        assertEquals("message", message.field().getName());
+
+        PathTrie.Resolved count = paths.resolve(config, "count");
+        assertNotNull(count);
+        assertSame(config, count.parent());
+
+        assertNull(paths.resolve(config, "nested.missing"));
+        assertNull(paths.resolve(config, "count.value"));
+        config.nested = null;
+        assertNull(paths.resolve(config, "nested.message"));
+    }
+}
@@ -0,0 +1,94 @@
+package org.samo_lego.config2brigadier.common.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PermissionCacheTest {
+
+    private static final long EXPIRY = 1000;
+    private static final UUID ID = new UUID(0, 1);
+    private static final UUID OTHER_ID = new UUID(0, 2);
+
+    private final Object player = new Object();
+    private final Object permissions = new Object();
+    private final List<String> evaluated = new ArrayList<>();
+    private PermissionCache.Cache<Object, Object> cache;
+
+    @BeforeEach
+    void createCache() {
+        this.cache = new PermissionCache.Cache<>(EXPIRY);
+    }
+
+    private boolean check(
+        UUID id,
+        Object player,
+        Object permissions,
+        String permission,
+        long now
+    ) {
+        return this.cache.check(
+            id,
+            player,
+            permissions,
+            permission,
+            now,
+            node -> {
+                this.evaluated.add(node);
+                return node.endsWith(".allowed");
+            }
+        );
+    }
+
+    private boolean check(String permission, long now) {
+        return this.check(ID, this.player, this.permissions, permission, now);
+    }
+
+    @Test
+    void cachesDecisions() {
+        assertTrue(this.check("mod.allowed", 0));
+        assertFalse(this.check("mod.denied", 0));
+        assertTrue(this.check("mod.allowed", EXPIRY - 1));
+        assertFalse(this.check("mod.denied", EXPIRY - 1));
+
+        assertEquals(List.of("mod.allowed", "mod.denied"), this.evaluated);
+    }
+
+    @Test
+    void expiresDecisions() {
+        this.check("mod.allowed", 0);
+        this.check("mod.allowed", EXPIRY);
+        // Expiry restarts with the new decisions
+        this.check("mod.allowed", 2 * EXPIRY - 1);
+
+        assertEquals(List.of("mod.allowed", "mod.allowed"), this.evaluated);
+    }
+
+    @Test
+    void dropsDecisionsOfNewLoginOrPermissions() {
+        this.check("mod.allowed", 0);
+        this.check(ID, new Object(), this.permissions, "mod.allowed", 0);
+        this.check(ID, this.player, new Object(), "mod.allowed", 0);
+
+        assertEquals(3, this.evaluated.size());
+    }
+
+    @Test
+    void invalidatesPlayer() {
+        Object other = new Object();
+        this.check("mod.allowed", 0);
+        this.check(OTHER_ID, other, this.permissions, "mod.allowed", 0);
+
+        this.cache.invalidate(ID);
+        this.check("mod.allowed", 0);
+        this.check(OTHER_ID, other, this.permissions, "mod.allowed", 0);
+
+        assertEquals(3, this.evaluated.size());
+    }
+}
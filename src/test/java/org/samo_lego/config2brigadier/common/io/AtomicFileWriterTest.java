@@ -0,0 +1,133 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+
+class AtomicFileWriterTest {
+
+    @TempDir
+    Path dir;
+
+    public static class Config implements IBrigadierConfigurator {
+
+        public int value = 1;
+
+        @Override
+        public void save() {}
+    }
+
+    private static void write(Path file, int backups, String content)
+        throws IOException {
+        AtomicFileWriter.write(
+            file,
+            FsyncPolicy.NONE,
+            backups,
+            ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+    @Test
+    void rotatesBackups() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        write(file, 2, "first");
+        write(file, 2, "second");
+        write(file, 2, "third");
+        write(file, 2, "fourth");
+
+        assertEquals("fourth", Files.readString(file));
+        assertEquals(
+            "third",
+            Files.readString(AtomicFileWriter.backupPath(file, 1))
+        );
+        assertEquals(
+            "second",
+            Files.readString(AtomicFileWriter.backupPath(file, 2))
+        );
+        assertFalse(Files.exists(AtomicFileWriter.backupPath(file, 3)));
+        try (var files = Files.list(this.dir)) {
+            assertEquals(3, files.count(), "temporary files are removed");
+        }
+    }
+
+    @Test
+    void deletesStaleTempFiles() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        Path stale = this.dir.resolve("config.json.1x2y3z.tmp");
+        Path other = this.dir.resolve("other.json.1x2y3z.tmp");
+        Files.writeString(stale, "partial");
+        Files.writeString(other, "partial");
+
+        write(file, 0, "first");
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(other), "other files' temp files are kept");
+        assertEquals("first", Files.readString(file));
+    }
+
+    @Test
+    void keepsPermissions() throws IOException {
+        if (
+            !FileSystems.getDefault().supportedFileAttributeViews().contains(
+                "posix"
+            )
+        ) {
+            return;
+        }
+        Path file = this.dir.resolve("config.json");
+        write(file, 1, "first");
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString(
+            "rw-r-----"
+        );
+        Files.setPosixFilePermissions(file, permissions);
+
+        write(file, 1, "second");
+
+        assertEquals(permissions, Files.getPosixFilePermissions(file));
+        assertEquals(
+            permissions,
+            Files.getPosixFilePermissions(AtomicFileWriter.backupPath(file, 1))
+        );
+    }
+
+    @Test
+    void recoversFromBackup() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        Files.writeString(
+            AtomicFileWriter.backupPath(file, 1),
+            "{\"value\": 7}"
+        );
+        Files.writeString(file, "{\"value\": ");
+
+        Config config = IBrigadierConfigurator.loadConfigFile(
+            file.toFile(),
+            Config.class,
+            Config::new
+        );
+
+        assertEquals(7, config.value);
+        assertTrue(Files.readString(file).contains("7"));
+        // Broken file is moved aside instead of being rotated into the backups
+        assertEquals(
+            "{\"value\": 7}",
+            Files.readString(AtomicFileWriter.backupPath(file, 1))
+        );
+        assertEquals(
+            "{\"value\": ",
+            Files.readString(this.dir.resolve("config.json.corrupted"))
+        );
+    }
+}
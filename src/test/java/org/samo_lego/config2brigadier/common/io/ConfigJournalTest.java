@@ -0,0 +1,148 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.annotation.EditJournal;
+
+class ConfigJournalTest {
+
+    private static final String BASE =
+        "{\"message\":\"Hello\",\"map\":{\"a\":1},\"set\":[\"x\"],\"list\":[1,2]}";
+
+    @TempDir
+    Path dir;
+
+    @EditJournal(maxEntries = 5)
+    public static class Config implements IBrigadierConfigurator {
+
+        public String message = "Hello";
+        public Map<String, Integer> map = new LinkedHashMap<>(
+            Map.of("a", 1)
+        );
+        public Set<String> set = new LinkedHashSet<>(List.of("x"));
+        public List<Integer> list = new ArrayList<>(List.of(1, 2));
+
+        @Override
+        public void save() {}
+    }
+
+    private ConfigJournal journal(Path file) throws IOException {
+        ConfigJournal journal = ConfigJournal.of(file, Config.class);
+        journal.clear(Files.size(file));
+        return journal;
+    }
+
+    private void appendEdits(ConfigJournal journal) throws IOException {
+        List<JsonElement> entries = List.of(
+            ConfigJournal.entry(List.of("message"), "Hi"),
+            ConfigJournal.entry(
+                List.of("map"),
+                ConfigJournal.EntryEdit.put("b", 2)
+            ),
+            ConfigJournal.entry(
+                List.of("map"),
+                ConfigJournal.EntryEdit.remove("a")
+            ),
+            ConfigJournal.entry(
+                List.of("set"),
+                ConfigJournal.EntryEdit.add("y")
+            ),
+            ConfigJournal.entry(
+                List.of("set"),
+                ConfigJournal.EntryEdit.removeValue("x")
+            ),
+            ConfigJournal.entry(
+                List.of("list"),
+                ConfigJournal.EntryEdit.set(1, 5)
+            )
+        );
+        for (JsonElement entry : entries) {
+            journal.append(entry.getAsJsonObject(), FsyncPolicy.NONE);
+        }
+    }
+
+    @Test
+    void replaysEntryEdits() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        Files.writeString(file, BASE);
+        this.appendEdits(this.journal(file));
+
+        Config config = ConfigLoader.load(file, Config.class, Config::new);
+
+        assertEquals("Hi", config.message);
+        assertEquals(Map.of("b", 2), config.map);
+        assertEquals(Set.of("y"), config.set);
+        assertEquals(List.of(1, 5), config.list);
+    }
+
+    @Test
+    void replayIsIdempotent() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        Files.writeString(file, "{}");
+        this.appendEdits(this.journal(file));
+        Path journalFile = ConfigJournal.pathFor(file, Config.class);
+
+        JsonElement once = JsonParser.parseString(BASE);
+        assertEquals(6, ConfigJournal.replay(journalFile, once));
+        JsonElement twice = once.deepCopy();
+        ConfigJournal.replay(journalFile, twice);
+
+        assertEquals(once, twice);
+    }
+
+    @Test
+    void entryEditsDontTriggerCompaction() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        // Large map, journaling it as a whole would be as large as the file
+        StringBuilder json = new StringBuilder("{\"map\":{");
+        for (int i = 0; i < 10_000; ++i) {
+            json
+                .append(i > 0 ? "," : "")
+                .append("\"key")
+                .append(i)
+                .append("\":")
+                .append(i);
+        }
+        Files.writeString(file, json.append("}}"));
+        ConfigJournal journal = this.journal(file);
+
+        for (int i = 0; i < 4; ++i) {
+            journal.append(
+                ConfigJournal.entry(
+                    List.of("map"),
+                    ConfigJournal.EntryEdit.put("key" + i, -i)
+                ),
+                FsyncPolicy.NONE
+            );
+            assertFalse(journal.shouldCompact());
+        }
+
+        journal.append(
+            ConfigJournal.entry(List.of("message"), "Hi"),
+            FsyncPolicy.NONE
+        );
+        assertTrue(journal.shouldCompact(), "compacted after maxEntries");
+
+        journal.clear(Files.size(file));
+        assertFalse(journal.shouldCompact());
+        assertFalse(
+            ConfigJournal.hasEntries(ConfigJournal.pathFor(file, Config.class))
+        );
+    }
+}
@@ -0,0 +1,110 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.annotation.ShardedStorage;
+
+class ConfigShardsTest {
+
+    // Keys "b" and "a" are in shards 0 and 1 of 2
+    private static final String BROKEN = "{\"a\": 1,";
+
+    @TempDir
+    Path dir;
+
+    public static class Config implements IBrigadierConfigurator {
+
+        public String message = "Hello";
+
+        @ShardedStorage(shards = 2)
+        public Map<String, Integer> map = new HashMap<>();
+
+        @ShardedStorage
+        public List<String> list = new ArrayList<>();
+
+        @Override
+        public void save() {}
+    }
+
+    private Path shard(Path file, String field, int index) {
+        return file.resolveSibling(
+            file.getFileName() + "." + field + "/shard-" + index + ".json"
+        );
+    }
+
+    @Test
+    void writesShards() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        Config config = ConfigLoader.load(file, Config.class, Config::new);
+        config.map.put("a", 1);
+        config.map.put("b", 2);
+        config.list.add("x");
+
+        ConfigStorage storage = ConfigStorage.get(config);
+        assertNotNull(storage);
+        storage.save(config);
+
+        Config loaded = ConfigLoader.load(file, Config.class, Config::new);
+        assertEquals(Map.of("a", 1, "b", 2), loaded.map);
+        assertEquals(List.of("x"), loaded.list);
+        assertFalse(Files.readString(file).contains("\"map\""));
+    }
+
+    @Test
+    void keepsCorruptShards() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        Files.writeString(file, "{\"message\":\"Hi\"}");
+        Files.createDirectories(this.shard(file, "map", 0).getParent());
+        Files.writeString(this.shard(file, "map", 0), "{\"b\": 2}");
+        Files.writeString(this.shard(file, "map", 1), BROKEN);
+        Files.createDirectories(this.shard(file, "list", 0).getParent());
+        Files.writeString(this.shard(file, "list", 0), BROKEN);
+
+        Config config = ConfigLoader.load(file, Config.class, Config::new);
+        assertEquals("Hi", config.message);
+        assertEquals(Map.of("b", 2), config.map);
+
+        // Whole save and edits of the broken shard
+        config.message = "Hello";
+        config.map.put("a", 3);
+        config.map.put("b", 4);
+        config.list.add("x");
+        ConfigStorage storage = ConfigStorage.get(config);
+        assertNotNull(storage);
+        storage.save(config);
+
+        assertEquals(BROKEN, Files.readString(this.shard(file, "map", 1)));
+        assertEquals(BROKEN, Files.readString(this.shard(file, "list", 0)));
+        Config loaded = ConfigLoader.load(file, Config.class, Config::new);
+        assertEquals("Hello", loaded.message);
+        assertEquals(Map.of("b", 4), loaded.map);
+    }
+
+    @Test
+    void keepsCorruptStaleShards() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        Files.writeString(file, "{}");
+        Files.createDirectories(this.shard(file, "map", 0).getParent());
+        Files.writeString(this.shard(file, "map", 2), "{\"a\": 1, \"b\": 2}");
+        Files.writeString(this.shard(file, "map", 3), BROKEN);
+
+        Config config = ConfigLoader.load(file, Config.class, Config::new);
+        assertEquals(Map.of("a", 1, "b", 2), config.map);
+
+        // Shard 2 is redistributed when loading, shard 3 is kept
+        assertFalse(Files.exists(this.shard(file, "map", 2)));
+        assertEquals(BROKEN, Files.readString(this.shard(file, "map", 3)));
+    }
+}
@@ -0,0 +1,60 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+import org.samo_lego.config2brigadier.common.annotation.BinarySnapshot;
+
+class JsonSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @BinarySnapshot
+    public static class Config implements IBrigadierConfigurator {
+
+        public String message = "aaa";
+
+        @Override
+        public void save() {}
+    }
+
+    @Test
+    void loadsSnapshot() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        ConfigLoader.load(file, Config.class, Config::new);
+
+        JsonSnapshot.Loaded<Config> loaded = JsonSnapshot.load(
+            file,
+            Config.class
+        );
+        assertNotNull(loaded);
+        assertEquals("aaa", loaded.config().message);
+    }
+
+    @Test
+    void ignoresSnapshotOfEditedFile() throws IOException {
+        Path file = this.dir.resolve("config.json");
+        ConfigLoader.load(file, Config.class, Config::new);
+        FileTime modified = Files.getLastModifiedTime(file);
+
+        // Same size and modification time, e.g. with coarse timestamps
+        Files.writeString(
+            file,
+            Files.readString(file).replace("aaa", "bbb")
+        );
+        Files.setLastModifiedTime(file, modified);
+
+        assertNull(JsonSnapshot.load(file, Config.class));
+        Config config = ConfigLoader.load(file, Config.class, Config::new);
+        assertEquals("bbb", config.message);
+    }
+}
@@ -0,0 +1,167 @@
+package org.samo_lego.config2brigadier.common.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.samo_lego.config2brigadier.common.Config2Brigadier.GSON;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class SnapshotCodecTest {
+
+    public enum Mode {
+        FAST,
+        SLOW,
+    }
+
+    public static class Config {
+
+        public boolean enabled = true;
+        public int count = 3;
+        public long big = Long.MAX_VALUE;
+        public double ratio = 0.5;
+        public char symbol = '§';
+        public Integer boxed = null;
+        public String message = "Hello ✓";
+        public final String fixed = "final";
+        public transient String skipped = "transient";
+        public Mode mode = Mode.SLOW;
+        public Nested nested = new Nested();
+        public List<Nested> nestedList = new ArrayList<>();
+        public Map<String, Integer> map = new HashMap<>();
+        public Map<Mode, List<String>> enumMap = new HashMap<>();
+        public TreeMap<String, Double> sorted = new TreeMap<>();
+        public Set<String> set = new LinkedHashSet<>();
+        public List<String> nullList = null;
+
+        // Stored as json
+        public Point record = new Point(1, 2);
+        public Map<String, Point> points = new HashMap<>();
+        public Nested subclass = new SubNested();
+        public Adapted adapted = new Adapted("adapted");
+        public Object untyped = List.of("a", 1);
+    }
+
+    public static class Nested {
+
+        public String name = "nested";
+        public List<Integer> values = new ArrayList<>(List.of(1, 2));
+        public Nested child = null;
+    }
+
+    public static class SubNested extends Nested {
+
+        public int extra = 7;
+    }
+
+    public record Point(int x, int y) {}
+
+    @JsonAdapter(Adapted.Adapter.class)
+    public static class Adapted {
+
+        private final String value;
+
+        Adapted(String value) {
+            this.value = value;
+        }
+
+        public static class Adapter extends TypeAdapter<Adapted> {
+
+            @Override
+            public void write(JsonWriter out, Adapted value)
+                throws IOException {
+                out.value("@" + value.value);
+            }
+
+            @Override
+            public Adapted read(JsonReader in) throws IOException {
+                return new Adapted(in.nextString().substring(1));
+            }
+        }
+    }
+
+    private static Config config() {
+        Config config = new Config();
+        Nested child = new Nested();
+        child.name = "child";
+        config.nested.child = child;
+        config.nestedList.add(new Nested());
+        config.nestedList.add(null);
+        config.map.put("a", 1);
+        config.map.put("b", null);
+        config.enumMap.put(Mode.FAST, List.of("x", "y"));
+        config.sorted.put("z", 1.5);
+        config.sorted.put("a", -2.0);
+        config.set.add("first");
+        config.set.add("second");
+        config.points.put("origin", new Point(0, 0));
+        return config;
+    }
+
+    private static Object roundTrip(Object value)
+        throws IOException, ReflectiveOperationException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        SnapshotCodec.write(out, value, value.getClass());
+        out.flush();
+        ByteBuffer in = ByteBuffer.wrap(bytes.toByteArray());
+        Object read = SnapshotCodec.read(in, value.getClass());
+        assertEquals(0, in.remaining(), "whole snapshot is read");
+        return read;
+    }
+
+    @Test
+    void readsSameAsGson() throws IOException, ReflectiveOperationException {
+        Config config = config();
+        Config fromJson = GSON.fromJson(GSON.toJson(config), Config.class);
+
+        Config read = (Config) roundTrip(config);
+
+        assertEquals(GSON.toJson(fromJson), GSON.toJson(read));
+        assertEquals(fromJson.map, read.map);
+        assertEquals(TreeMap.class, read.sorted.getClass());
+        assertEquals(fromJson.subclass.getClass(), read.subclass.getClass());
+        assertEquals(fromJson.untyped, read.untyped);
+    }
+
+    @Test
+    void keepsDefaultsOfNulls() throws IOException, ReflectiveOperationException {
+        Config config = new Config();
+        config.nested = null;
+        config.message = null;
+
+        Config read = (Config) roundTrip(config);
+
+        assertEquals(
+            GSON.toJson(GSON.fromJson(GSON.toJson(config), Config.class)),
+            GSON.toJson(read)
+        );
+        assertEquals("Hello ✓", read.message);
+    }
+
+    @Test
+    void describesLayout() {
+        assertEquals(
+            SnapshotCodec.describe(Config.class),
+            SnapshotCodec.describe(Config.class)
+        );
+        assertNotEquals(
+            SnapshotCodec.describe(Nested.class),
+            SnapshotCodec.describe(SubNested.class)
+        );
+    }
+}
@@ -0,0 +1,76 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ConfigDiffTest {
+
+    public static class Config {
+
+        public Map<String, Entry> entries = new LinkedHashMap<>();
+        public List<Entry> list = new ArrayList<>();
+        public Set<Entry> set = new HashSet<>();
+    }
+
+    // No equals, compared per field
+    public static class Entry {
+
+        public String name;
+        public int value;
+
+        Entry(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private static Config config(int value) {
+        Config config = new Config();
+        config.entries.put("a", new Entry("a", 1));
+        config.entries.put("b", new Entry("b", value));
+        config.list.add(new Entry("c", 3));
+        config.set.add(new Entry("d", 4));
+        config.set.add(new Entry("e", 5));
+        return config;
+    }
+
+    @Test
+    void equalEntriesAreUnchanged() {
+        assertTrue(ConfigDiff.compute(config(2), config(2)).isEmpty());
+    }
+
+    @Test
+    void changedEntryOnlyUpdatesItself() {
+        Config config = config(2);
+        Entry unchanged = config.entries.get("a");
+
+        ConfigDiff diff = ConfigDiff.compute(config, config(7));
+        assertEquals(List.of("entries"), diff.changedPaths());
+
+        diff.apply();
+        assertSame(unchanged, config.entries.get("a"));
+        assertEquals(7, config.entries.get("b").value);
+        assertTrue(ConfigDiff.compute(config, config(7)).isEmpty());
+    }
+
+    @Test
+    void changedSetElementIsFound() {
+        Config config = config(2);
+        Config newConfig = config(2);
+        newConfig.set.iterator().next().value = 9;
+
+        assertEquals(
+            List.of("set"),
+            ConfigDiff.compute(config, newConfig).changedPaths()
+        );
+    }
+}
@@ -0,0 +1,58 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.samo_lego.config2brigadier.common.IBrigadierConfigurator;
+
+class DescriptionIndexTest {
+
+    public static class CommentedConfig implements IBrigadierConfigurator {
+
+        @SerializedName("// First line of value.")
+        public final String _comment_value = "";
+
+        @SerializedName("// Second line of value.")
+        public final String _comment_value1 = "";
+
+        @SerializedName("// Only line of value2.")
+        public final String _comment_value2 = "";
+
+        @SerializedName("// Third line of value2.")
+        public final String _comment_value23 = "";
+
+        @SerializedName("// Comment of a missing field.")
+        public final String _comment_missing4 = "";
+
+        public int value = 1;
+
+        public int value2 = 2;
+
+        @Override
+        public void save() {}
+    }
+
+    private static List<String> comments(String field) throws Exception {
+        return DescriptionIndex.of(new CommentedConfig(), CommentedConfig.class)
+            .get(CommentedConfig.class.getField(field))
+            .comments();
+    }
+
+    @Test
+    void attributesTrailingDigitsAsIndex() throws Exception {
+        assertEquals(
+            List.of("First line of value.", "Second line of value."),
+            comments("value")
+        );
+    }
+
+    @Test
+    void prefersExactFieldName() throws Exception {
+        assertEquals(
+            List.of("Only line of value2.", "Third line of value2."),
+            comments("value2")
+        );
+    }
+}
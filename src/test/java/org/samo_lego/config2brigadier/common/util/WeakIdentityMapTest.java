@@ -0,0 +1,36 @@
+package org.samo_lego.config2brigadier.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class WeakIdentityMapTest {
+
+    record Key(int value) {}
+
+    @Test
+    void comparesKeysByIdentity() {
+        WeakIdentityMap<Key, String> map = new WeakIdentityMap<>();
+        Key key = new Key(1);
+        map.put(key, "first");
+
+        assertEquals("first", map.get(key));
+        assertNull(map.get(new Key(1)));
+
+        Key equal = new Key(1);
+        map.put(equal, "second");
+        assertEquals("first", map.get(key));
+        assertEquals("second", map.get(equal));
+    }
+
+    @Test
+    void computesOnce() {
+        WeakIdentityMap<Key, String> map = new WeakIdentityMap<>();
+        Key key = new Key(1);
+        assertEquals("value", map.computeIfAbsent(key, k -> "value"));
+        assertEquals("value", map.computeIfAbsent(key, k -> "other"));
+        assertEquals(List.of(key), map.keys());
+    }
+}